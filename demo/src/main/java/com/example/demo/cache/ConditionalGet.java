@@ -0,0 +1,68 @@
+package com.example.demo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Answers GETs of public resources with an ETag and the endpoint's Cache-Control policy, and with a
+ * bodyless 304 when the client already holds the current content.
+ *
+ * The ETag is a hash of the serialized body, so it only depends on the data: every instance advertises
+ * the same ETag for the same content, and a change made anywhere (another instance, the database
+ * directly) changes it as soon as the body is reloaded. The body is still loaded for every request,
+ * usually from the catalog caches; a 304 saves sending it.
+ *
+ * Policies are read from {@code http.cache-control.<endpoint>}, falling back to {@code http.cache-control.default}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGet {
+
+    private static final String PROPERTY_PREFIX = "http.cache-control.";
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final Map<String, String> policies = new ConcurrentHashMap<>();
+
+    public <T> ResponseEntity<T> respond(WebRequest request, String endpoint, Supplier<T> body) {
+        T value = body.get();
+        String etag = etag(endpoint, value);
+        String cacheControl = cacheControl(endpoint);
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(value);
+    }
+
+    public String cacheControl(String endpoint) {
+        return policies.computeIfAbsent(endpoint, key ->
+                environment.getProperty(PROPERTY_PREFIX + key, environment.getProperty(PROPERTY_PREFIX + "default", "no-cache")));
+    }
+
+    private String etag(String endpoint, Object value) {
+        try {
+            return "\"" + endpoint + "-" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(value)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the " + endpoint + " response", e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.Coupon;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A coupon compiled for evaluation: its thresholds plus the applicable product and category ids as
+ * sorted primitive arrays. Immutable, so one instance is shared by every request that uses the code.
+ *
+ * Evaluating a cart is a single pass over its lines and never touches the coupon's entity collections.
+ * The usage counter is not part of the rules, since it changes with every order; checkout counts uses
+ * with a conditional update on the coupon row instead.
+ */
+@Getter
+public final class CouponRules {
+
+    /**
+     * One cart line as seen by the rules.
+     */
+    public record Line(long productId, Long categoryId, BigDecimal unitPrice, int quantity) {
+        BigDecimal total() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    /**
+     * Result of evaluating a cart: its subtotal, the part of it the coupon applies to, and the discount.
+     */
+    public record Evaluation(BigDecimal subtotal, BigDecimal applicableSubtotal, boolean applicable,
+                             BigDecimal discount, boolean freeShipping) {
+    }
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final long id;
+    private final String code;
+    private final String name;
+    private final Coupon.CouponType type;
+    private final Coupon.DiscountType discountType;
+    private final BigDecimal discountValue;
+    private final LocalDateTime expiryDate;
+    private final BigDecimal minPurchaseAmount;
+    private final int usageLimit;
+    private final boolean firstTimeOnly;
+    @Getter(AccessLevel.NONE)
+    private final long[] productIds;
+    @Getter(AccessLevel.NONE)
+    private final long[] categoryIds;
+
+    private CouponRules(Coupon coupon, long[] productIds, long[] categoryIds) {
+        this.id = coupon.getId();
+        this.code = coupon.getCode();
+        this.name = coupon.getName();
+        this.type = coupon.getType();
+        this.discountType = coupon.getDiscountType();
+        this.discountValue = coupon.getDiscountValue();
+        this.expiryDate = coupon.getExpiryDate();
+        this.minPurchaseAmount = coupon.getMinPurchaseAmount();
+        this.usageLimit = coupon.getUsageLimit() == null ? 0 : coupon.getUsageLimit();
+        this.firstTimeOnly = coupon.isFirstTimeOnly();
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+    }
+
+    /**
+     * Compiles a coupon. The applicability ids are passed in separately so the entity's lazy sets never have to load.
+     */
+    public static CouponRules compile(Coupon coupon, Collection<Long> productIds, Collection<Long> categoryIds) {
+        return new CouponRules(coupon, sortedIds(productIds), sortedIds(categoryIds));
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiryDate.isBefore(now);
+    }
+
+    public boolean meetsMinimum(BigDecimal subtotal) {
+        return minPurchaseAmount == null || subtotal.compareTo(minPurchaseAmount) >= 0;
+    }
+
+    /**
+     * Coupons without product or category restrictions apply to the whole cart.
+     */
+    public boolean isRestricted() {
+        return productIds.length > 0 || categoryIds.length > 0;
+    }
+
+    public boolean appliesTo(long productId, Long categoryId) {
+        if (!isRestricted()) {
+            return true;
+        }
+        return Arrays.binarySearch(productIds, productId) >= 0
+                || (categoryId != null && Arrays.binarySearch(categoryIds, categoryId) >= 0);
+    }
+
+    public Evaluation evaluate(Collection<Line> lines) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal applicableSubtotal = BigDecimal.ZERO;
+        boolean applicable = false;
+        for (Line line : lines) {
+            BigDecimal lineTotal = line.total();
+            subtotal = subtotal.add(lineTotal);
+            if (appliesTo(line.productId(), line.categoryId())) {
+                applicableSubtotal = applicableSubtotal.add(lineTotal);
+                applicable = true;
+            }
+        }
+        return new Evaluation(subtotal, applicableSubtotal, applicable, discount(applicableSubtotal),
+                discountType == Coupon.DiscountType.FREE_SHIPPING);
+    }
+
+    // Percentage discounts only apply to the applicable lines; a fixed amount applies once per order
+    private BigDecimal discount(BigDecimal applicableSubtotal) {
+        if (discountValue == null) {
+            return BigDecimal.ZERO;
+        }
+        return switch (discountType) {
+            case FIXED_AMOUNT -> discountValue;
+            case PERCENTAGE -> applicableSubtotal.multiply(discountValue).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            case FREE_SHIPPING -> BigDecimal.ZERO;
+        };
+    }
+
+    private static long[] sortedIds(Collection<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the changes made to the storefront's resources through this instance, so caches built
+ * from them can be refreshed straight away instead of waiting for their maximum age.
+ *
+ * Writers bump a resource after their change is committed, so a reader that sees the new version also
+ * sees the change. Changes made elsewhere (another instance, the database directly) don't move these
+ * counters; anything relying on them must expire on its own as well.
+ */
+@Component
+public class ResourceVersions {
+
+    public static final String CATEGORIES = "categories";
+    public static final String HERO = "hero";
+    public static final String ANNOUNCEMENT = "announcement";
+    public static final String COUNTDOWN = "countdown";
+    public static final String SETTINGS = "settings";
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Current version of one resource; lets aggregates built from several resources detect staleness.
+     */
+    public long version(String resource) {
+        AtomicLong version = versions.get(resource);
+        return version != null ? version.get() : 0;
+    }
+
+    public void bump(String resource) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(resource);
+                }
+            });
+        } else {
+            increment(resource);
+        }
+    }
+
+    private void increment(String resource) {
+        versions.computeIfAbsent(resource, key -> new AtomicLong()).incrementAndGet();
+    }
+}
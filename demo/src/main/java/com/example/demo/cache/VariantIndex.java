@@ -0,0 +1,77 @@
+package com.example.demo.cache;
+
+import com.example.demo.dto.ResolvedVariantDTO;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * All variants of one product, keyed by their canonical option combination, so resolving a customer's
+ * selection is one hash lookup instead of loading and scanning every variant's attribute map.
+ *
+ * The canonical key ignores option order, case and surrounding whitespace: {@code Size=M, Color=Red}
+ * and {@code color=red, size=m} resolve to the same variant. Entries of the selection that are not one of
+ * the product's option names (e.g. a cache-busting query parameter) are ignored.
+ */
+public final class VariantIndex {
+
+    public static final VariantIndex EMPTY = new VariantIndex(Map.of(), Set.of());
+
+    private final Map<String, ResolvedVariantDTO> variants;
+    // Normalized option names used by any variant
+    private final Set<String> optionNames;
+
+    private VariantIndex(Map<String, ResolvedVariantDTO> variants, Set<String> optionNames) {
+        this.variants = variants;
+        this.optionNames = optionNames;
+    }
+
+    /**
+     * Builds the index from rows of {@code ProductVariantRepository#findAttributeRowsByProductId}.
+     */
+    public static VariantIndex fromAttributeRows(List<Object[]> rows) {
+        Map<Long, ResolvedVariantDTO> byId = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            ResolvedVariantDTO variant = byId.computeIfAbsent((Long) row[0], id -> new ResolvedVariantDTO(
+                    id, new LinkedHashMap<>(), (BigDecimal) row[1], ((Number) row[2]).intValue(), (String) row[3]));
+            variant.getOptions().put((String) row[4], (String) row[5]);
+        }
+        if (byId.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, ResolvedVariantDTO> variants = new HashMap<>();
+        Set<String> optionNames = new HashSet<>();
+        for (ResolvedVariantDTO variant : byId.values()) {
+            variant.setOptions(Collections.unmodifiableMap(variant.getOptions()));
+            variants.putIfAbsent(key(variant.getOptions()), variant);
+            variant.getOptions().keySet().forEach(name -> optionNames.add(normalize(name)));
+        }
+        return new VariantIndex(variants, optionNames);
+    }
+
+    public Optional<ResolvedVariantDTO> resolve(Map<String, String> selection) {
+        Map<String, String> options = new HashMap<>();
+        selection.forEach((name, value) -> {
+            if (optionNames.contains(normalize(name))) {
+                options.put(name, value);
+            }
+        });
+        return Optional.ofNullable(variants.get(key(options)));
+    }
+
+    public int size() {
+        return variants.size();
+    }
+
+    static String key(Map<String, String> options) {
+        TreeMap<String, String> canonical = new TreeMap<>();
+        options.forEach((name, value) -> canonical.put(normalize(name), normalize(value)));
+        StringBuilder key = new StringBuilder();
+        canonical.forEach((name, value) -> key.append(name).append('=').append(value).append(';'));
+        return key.toString();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
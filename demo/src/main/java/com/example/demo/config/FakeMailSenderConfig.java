@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces SMTP with an in-memory mail sender when {@code email.fake-sender.enabled=true}, for running
+ * and load-testing the app offline. {@code email.fake-sender.latency-ms} simulates the cost of opening
+ * an SMTP connection, which is paid once per {@code send(...)} call like with the real sender.
+ */
+@Configuration
+@ConditionalOnProperty(name = "email.fake-sender.enabled", havingValue = "true")
+public class FakeMailSenderConfig {
+
+    @Bean
+    public FakeJavaMailSender fakeJavaMailSender(@Value("${email.fake-sender.latency-ms:0}") long latencyMs) {
+        return new FakeJavaMailSender(latencyMs);
+    }
+
+    public static class FakeJavaMailSender implements JavaMailSender {
+
+        private static final Logger logger = LoggerFactory.getLogger(FakeJavaMailSender.class);
+
+        private final long latencyMs;
+        private final Session session = Session.getInstance(new Properties());
+        private final AtomicLong connections = new AtomicLong();
+        private final AtomicLong messagesSent = new AtomicLong();
+
+        public FakeJavaMailSender(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        public long getConnections() {
+            return connections.get();
+        }
+
+        public long getMessagesSent() {
+            return messagesSent.get();
+        }
+
+        @Override
+        public MimeMessage createMimeMessage() {
+            return new MimeMessage(session);
+        }
+
+        @Override
+        public MimeMessage createMimeMessage(InputStream contentStream) {
+            try {
+                return new MimeMessage(session, contentStream);
+            } catch (jakarta.mail.MessagingException e) {
+                throw new IllegalArgumentException("Could not parse MIME message", e);
+            }
+        }
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            deliver(mimeMessages.length);
+        }
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            deliver(simpleMessages.length);
+            for (SimpleMailMessage message : simpleMessages) {
+                logger.debug("Fake mail to {}: {}", message.getTo(), message.getSubject());
+            }
+        }
+
+        private void deliver(int count) {
+            connections.incrementAndGet();
+            if (latencyMs > 0) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messagesSent.addAndGet(count);
+        }
+    }
+}
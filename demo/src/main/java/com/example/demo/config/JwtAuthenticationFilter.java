@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import com.example.demo.model.User;
 import com.example.demo.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,11 +11,19 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests from their bearer token. The token is verified once, and the principal is built
+ * from its claims (user id, email, role) without touching the database. It is a {@link User} holding only
+ * those fields; endpoints that need the full user load it through {@code UserService.getCurrentUser}.
+ *
+ * Tokens issued before the id and role claims existed fall back to loading the user by email.
+ */
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
@@ -24,17 +33,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
-        if(authorizationHeader != null && authorizationHeader.startsWith("Bearer ")){
-            jwt = authorizationHeader.substring(7);
-            username = jwtService.extractUsername(jwt);
-        }
-
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if(jwtService.validateToken(jwt, userDetails)){
+        if(authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null){
+            JwtService.AccessToken accessToken = jwtService.parseToken(authorizationHeader.substring(7));
+            UserDetails userDetails = accessToken != null ? principalFrom(accessToken) : null;
+            if(userDetails != null){
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -42,4 +45,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails principalFrom(JwtService.AccessToken accessToken) {
+        if (accessToken.userId() == null || accessToken.role() == null) {
+            try {
+                return userDetailsService.loadUserByUsername(accessToken.subject());
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+
+        User principal = new User();
+        principal.setId(accessToken.userId());
+        principal.setEmail(accessToken.subject());
+        principal.setRole(User.Role.valueOf(accessToken.role()));
+        // Only confirmed users can log in, so every token belongs to one
+        principal.setEmailConfirmation(true);
+        return principal;
+    }
+}
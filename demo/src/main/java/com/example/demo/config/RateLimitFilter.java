@@ -0,0 +1,187 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.ErrorDetails;
+import com.example.demo.service.RateLimiterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the routes configured under {@code rate-limit.routes}, per client IP and/or the email in the
+ * request body. It is registered ahead of Spring Security, so a rejected request costs no authentication,
+ * database or mail work; it gets a 429 with a {@code Retry-After} header instead.
+ *
+ * The client IP is the servlet remote address. Behind a proxy, set {@code server.forward-headers-strategy}
+ * so it reflects the real client.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Only small JSON bodies are buffered to look for an email; anything else is limited by IP alone
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final RateLimiterService rateLimiterService;
+    private final RateLimitProperties properties;
+    private final CorsConfigurationSource corsConfigurationSource;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    public RateLimitFilter(RateLimiterService rateLimiterService, RateLimitProperties properties,
+                           CorsConfigurationSource corsConfigurationSource, ObjectMapper objectMapper) {
+        this.rateLimiterService = rateLimiterService;
+        this.properties = properties;
+        this.corsConfigurationSource = corsConfigurationSource;
+        this.objectMapper = objectMapper;
+        properties.getRoutes().forEach((name, route) -> {
+            if (route.getPath() == null || route.getCapacity() <= 0 || route.getRefillPerMinute() <= 0) {
+                throw new IllegalStateException("rate-limit.routes." + name + " needs a path, a capacity and a refill-per-minute");
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, RateLimitProperties.Route> entry : properties.getRoutes().entrySet()) {
+            RateLimitProperties.Route route = entry.getValue();
+            if (route.getMethod().equalsIgnoreCase(request.getMethod()) && pathMatcher.match(route.getPath(), path)) {
+                limit(entry.getKey(), route, request, response, filterChain);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void limit(String routeName, RateLimitProperties.Route route, HttpServletRequest request,
+                       HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        HttpServletRequest forwarded = request;
+        String email = null;
+        if (route.getKey() != RateLimitProperties.KeyType.IP
+                && request.getContentLength() >= 0 && request.getContentLength() <= MAX_BODY_BYTES) {
+            // The body can only be read once, so the controller gets a copy
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            forwarded = cached;
+            email = emailFrom(cached.body);
+        }
+
+        long waitNanos = 0;
+        if (route.getKey() != RateLimitProperties.KeyType.EMAIL || email == null) {
+            waitNanos = rateLimiterService.tryAcquire(routeName, route, "ip:" + request.getRemoteAddr());
+        }
+        if (waitNanos == 0 && email != null) {
+            waitNanos = rateLimiterService.tryAcquire(routeName, route, "email:" + email);
+        }
+
+        if (waitNanos > 0) {
+            reject(request, response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private String emailFrom(byte[] body) {
+        try {
+            String email = objectMapper.readTree(body).path("email").asText("").trim();
+            return email.isEmpty() ? null : email.toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Not JSON; the controller will reject it anyway
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        // Spring Security's CORS handling hasn't run yet, and without the headers browsers hide the 429 from the app
+        CorsConfiguration corsConfiguration = corsConfigurationSource.getCorsConfiguration(request);
+        if (corsConfiguration != null && !corsProcessor.processRequest(corsConfiguration, request, response)) {
+            return;
+        }
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), "Too many requests, please retry later", "uri=" + request.getRequestURI());
+        objectMapper.writeValue(response.getOutputStream(), errorDetails);
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory, so it is available, and read, straight away
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-route request limits, bound from {@code rate-limit.*}. Each route gets a token bucket per client
+ * that holds {@code capacity} requests and refills at {@code refill-per-minute}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Clients tracked per route; past this, new clients share one bucket until idle ones are evicted
+    private int maxClientsPerRoute = 100_000;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+        // Ant-style pattern, e.g. /api/auth/register
+        private String path;
+        private String method = "POST";
+        private int capacity;
+        private int refillPerMinute;
+        private KeyType key = KeyType.IP;
+    }
+
+    public enum KeyType {
+        IP,
+        // The "email" field of the JSON body; requests without one fall back to the IP
+        EMAIL,
+        // Separate buckets for the IP and the email, both of which must have a token
+        IP_AND_EMAIL
+    }
+}
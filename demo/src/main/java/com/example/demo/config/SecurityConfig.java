@@ -1,11 +1,18 @@
 package com.example.demo.config;
 
+import com.example.demo.model.User;
 import com.example.demo.repositories.UserRepository;
 import com.example.demo.service.JwtService;
+import com.example.demo.service.RateLimiterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -13,11 +20,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -53,6 +61,8 @@ public class SecurityConfig {
                                 "/api/auth/confirm-email",
                                 "/api/auth/forgot-password",
                                 "/api/auth/reset-password",
+                                "/api/auth/refresh",
+                                "/api/auth/logout",
                                 "/api/orders/guest",
                                 "/api/test-post",
                                 "/api/cart/add" // Allow guest users to add to cart
@@ -68,6 +78,7 @@ public class SecurityConfig {
                                 "/api/settings",
                                 "/api/announcement",
                                 "/api/countdown",
+                                "/api/storefront",
                                 "/api/custom-packs",
                                 "/api/products/packable"
                         )
@@ -75,6 +86,8 @@ public class SecurityConfig {
                         .requestMatchers("/", "/index.html", "/images/**", "/vite.svg").permitAll()
                         .anyRequest().authenticated()
                 )
+                // 401 rather than 403 when the access token is missing or expired, so clients know to refresh it
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -85,7 +98,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:5173", "http://localhost:8081", "http://localhost:3000"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "If-None-Match", "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("ETag"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -93,14 +107,43 @@ public class SecurityConfig {
     }
 
 
+    // Ahead of the security filter chain, so throttled requests are turned away before any authentication work
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiterService rateLimiterService,
+                                                                   RateLimitProperties rateLimitProperties,
+                                                                   ObjectMapper objectMapper){
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiterService, rateLimitProperties, corsConfigurationSource(), objectMapper));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter(){
         return new JwtAuthenticationFilter(jwtService, userDetailsService());
     }
 
+    /**
+     * BCrypt at {@code auth.bcrypt.strength}, run on a bounded pool so password hashing can't take over
+     * the request threads. Defaults to half the cores; requests beyond the queue get a 429.
+     */
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength,
+                                                  @Value("${auth.password-hashing.threads:0}") int threads,
+                                                  @Value("${auth.password-hashing.queue-capacity:50}") int queueCapacity){
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity);
+    }
+
+    // Lets the authentication provider store a fresh hash on login when the stored one has a lower BCrypt cost
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public UserDetailsPasswordService userDetailsPasswordService(){
+        return (userDetails, newPassword) -> {
+            User user = userRepository.findByEmail(userDetails.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            user.setPassword(newPassword);
+            return userRepository.save(user);
+        };
     }
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception{
@@ -0,0 +1,78 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.DailySalesDTO;
+import com.example.demo.dto.SalesBreakdownDTO;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Sales reports, served from the daily rollup tables. {@code from} and {@code to} are inclusive days
+ * and default to the last 30 days.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_LIMIT = 100;
+
+    private final SalesRollupService salesRollupService;
+
+    @GetMapping("/sales/daily")
+    public ResponseEntity<List<DailySalesDTO>> getDailySales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        checkRange(start, end);
+        return ResponseEntity.ok(salesRollupService.getDailySales(start, end));
+    }
+
+    @GetMapping("/sales/products")
+    public ResponseEntity<List<SalesBreakdownDTO>> getProductSales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                   @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        checkRange(start, end);
+        return ResponseEntity.ok(salesRollupService.getProductSales(start, end, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    @GetMapping("/sales/categories")
+    public ResponseEntity<List<SalesBreakdownDTO>> getCategorySales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        checkRange(start, end);
+        return ResponseEntity.ok(salesRollupService.getCategorySales(start, end, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    /**
+     * Starts rebuilding all rollups from the orders table in the background.
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildRollups() {
+        salesRollupService.startBackfill();
+        return ResponseEntity.accepted().build();
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ConditionalGet;
 import com.example.demo.dto.AnnouncementDTO;
 import com.example.demo.service.AnnouncementService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/announcement")
@@ -13,10 +15,11 @@ import org.springframework.web.bind.annotation.*;
 public class AnnouncementController {
 
     private final AnnouncementService announcementService;
+    private final ConditionalGet conditionalGet;
 
     @GetMapping
-    public ResponseEntity<AnnouncementDTO> getAnnouncement() {
-        return ResponseEntity.ok(announcementService.getAnnouncement());
+    public ResponseEntity<AnnouncementDTO> getAnnouncement(WebRequest request) {
+        return conditionalGet.respond(request, "announcement", announcementService::getAnnouncement);
     }
 
     @PutMapping
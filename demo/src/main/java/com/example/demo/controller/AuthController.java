@@ -1,24 +1,28 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.BoundedPasswordEncoder;
 import com.example.demo.dto.*;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.TooManyRequestsException;
 import com.example.demo.mapper.UserMapper;
 import com.example.demo.model.User;
 import com.example.demo.service.JwtService;
 import com.example.demo.service.RecaptchaService;
 import com.example.demo.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -32,13 +36,14 @@ public class AuthController {
     private final JwtService jwtService;
     private final UserMapper userMapper;
     private final RecaptchaService recaptchaService; // Injected RecaptchaService
+    private final BoundedPasswordEncoder passwordEncoder;
 
     /**
      * Handles user login requests.
-     * Validates the reCAPTCHA token, authenticates the user, and returns a JWT token upon success.
+     * Validates the reCAPTCHA token, authenticates the user, and returns an access and a refresh token upon success.
      *
      * @param loginRequest The login request containing email, password, and reCAPTCHA token.
-     * @return A ResponseEntity containing the JWT token or an error message.
+     * @return A ResponseEntity containing the tokens or an error message.
      */
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest){
@@ -52,14 +57,63 @@ public class AuthController {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
             );
-            final UserDetails userDetails = userService.getUserByEmail(loginRequest.getEmail());
-            final String jwt = jwtService.generateToken(userDetails);
-            return ResponseEntity.ok(jwt);
+            final User user = userService.getUserByEmail(loginRequest.getEmail());
+            return ResponseEntity.ok(issueTokens(user));
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
         }
     }
 
+    /**
+     * Exchanges a refresh token for a new access and refresh token. The user is re-read, so a changed
+     * role applies from here on. A refresh token works only once; presenting it again revokes all of
+     * the user's tokens.
+     *
+     * @param request The request containing the refresh token.
+     * @return A ResponseEntity containing the new tokens, or 401 if the refresh token is not valid.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        Claims claims = request.getRefreshToken() != null ? jwtService.redeemRefreshToken(request.getRefreshToken()) : null;
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
+        }
+        User user;
+        try {
+            user = userService.getUserById(claims.get(JwtService.USER_ID_CLAIM, Number.class).longValue());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
+        }
+        if (!user.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
+        }
+        return ResponseEntity.ok(issueTokens(user));
+    }
+
+    /**
+     * Revokes the caller's access token and, if given, their refresh token, so they stop working before they expire.
+     *
+     * @param authorizationHeader The bearer token being logged out.
+     * @param request Optionally, the refresh token to revoke as well.
+     * @return An empty response.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+                                       @RequestBody(required = false) RefreshTokenRequest request) {
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            jwtService.revoke(authorizationHeader.substring(7));
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            jwtService.revoke(request.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private AuthTokensDTO issueTokens(User user) {
+        return new AuthTokensDTO(jwtService.generateToken(user), jwtService.generateRefreshToken(user),
+                jwtService.getAccessTokenLifetimeSeconds());
+    }
+
     /**
      * Handles new user registration requests.
      * Validates the reCAPTCHA token before creating a new user.
@@ -91,6 +145,9 @@ public class AuthController {
             User registeredUser = userService.registerUser(user);
             logger.info("Successfully processed registration for user: {}", registeredUser.getEmail());
             return ResponseEntity.ok(registeredUser);
+        } catch (TooManyRequestsException e) {
+            // Password hashing is saturated; let the handler answer 429 so the client retries
+            throw e;
         } catch (Exception e) {
             logger.error("!!! CRITICAL ERROR IN /api/auth/register !!!", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error in AuthController: " + e.getMessage());
@@ -99,6 +156,7 @@ public class AuthController {
 
     /**
      * Handles password change requests for authenticated users.
+     * All of the user's tokens are revoked, including the one used here, so they have to log in again.
      *
      * @param request The request containing the old and new passwords.
      * @return A ResponseEntity indicating the result.
@@ -160,16 +218,9 @@ public class AuthController {
      * @return A ResponseEntity containing the user's role.
      */
     @GetMapping("/user/role")
-    public ResponseEntity<String> getUserRole() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-
-        if (user != null) {
-            String role = String.valueOf(user.getRole());
-            return ResponseEntity.ok(role);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<String> getUserRole(@AuthenticationPrincipal User user) {
+        // The role is one of the token's claims, so this needs no lookup
+        return ResponseEntity.ok(String.valueOf(user.getRole()));
     }
 
     /**
@@ -193,10 +244,19 @@ public class AuthController {
      * @return A ResponseEntity containing the user's profile DTO.
      */
     @GetMapping("/user/profile")
-    public ResponseEntity<UserDTO> getUserProfile() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
+    public ResponseEntity<UserDTO> getUserProfile(@AuthenticationPrincipal User principal) {
+        User user = userService.getCurrentUser(principal.getId());
         return ResponseEntity.ok(userMapper.toDTO(user));
     }
-}
\ No newline at end of file
+
+    /**
+     * Load and timing of the password hashing pool, for admins.
+     *
+     * @return A ResponseEntity containing the pool statistics.
+     */
+    @GetMapping("/password-hashing-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PasswordHashingStatsDTO> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.stats());
+    }
+}
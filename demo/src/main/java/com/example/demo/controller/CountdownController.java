@@ -1,10 +1,12 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ConditionalGet;
 import com.example.demo.dto.CountdownDTO;
 import com.example.demo.service.CountdownService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/countdown")
@@ -13,10 +15,12 @@ public class CountdownController {
     @Autowired
     private CountdownService countdownService;
 
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     @GetMapping
-    public ResponseEntity<CountdownDTO> getCountdown() {
-        CountdownDTO countdown = countdownService.getCountdown();
-        return ResponseEntity.ok(countdown);
+    public ResponseEntity<CountdownDTO> getCountdown(WebRequest request) {
+        return conditionalGet.respond(request, "countdown", countdownService::getCountdown);
     }
 
     @PostMapping
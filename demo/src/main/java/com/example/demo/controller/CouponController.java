@@ -1,7 +1,9 @@
 // isamil22/ecommerce-basic/ecommerce-basic-de52fb3f9923420c0ceb538f0eea6ad24aa94a25/demo/src/main/java/com/example/demo/controller/CouponController.java
 package com.example.demo.controller;
 
+import com.example.demo.dto.CartItemDTO;
 import com.example.demo.dto.CouponDTO;
+import com.example.demo.dto.CouponEvaluationDTO;
 import com.example.demo.service.CouponService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -36,6 +38,11 @@ public class CouponController {
         }
     }
 
+    @PostMapping("/validate/{code}")
+    public ResponseEntity<CouponEvaluationDTO> evaluateCoupon(@PathVariable String code, @RequestBody List<CartItemDTO> items) {
+        return ResponseEntity.ok(couponService.evaluateCoupon(code, items));
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<CouponDTO>> getAllCoupons() {
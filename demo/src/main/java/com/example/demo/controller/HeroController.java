@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ConditionalGet;
 import com.example.demo.dto.HeroDTO;
 import com.example.demo.service.HeroService;
 import jakarta.validation.Valid;
@@ -8,6 +9,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -18,10 +20,11 @@ import java.io.IOException;
 public class HeroController {
 
     private final HeroService heroService;
+    private final ConditionalGet conditionalGet;
 
     @GetMapping
-    public ResponseEntity<HeroDTO> getHero() {
-        return ResponseEntity.ok(heroService.getHero());
+    public ResponseEntity<HeroDTO> getHero(WebRequest request) {
+        return conditionalGet.respond(request, "hero", heroService::getHero);
     }
 
     @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
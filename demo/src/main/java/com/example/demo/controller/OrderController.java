@@ -1,27 +1,43 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.GuestOrderRequestDTO;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.service.IdempotencyService;
+import com.example.demo.service.OrderExportService;
 import com.example.demo.service.OrderService;
 import com.example.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderService orderService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
+    private final OrderExportService orderExportService;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
@@ -30,22 +46,42 @@ public class OrderController {
                                                 @RequestParam String city,
                                                 @RequestParam String address,
                                                 @RequestParam String phoneNumber,
-                                                @RequestParam(required = false) String couponCode) {
+                                                @RequestParam(required = false) String couponCode,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Long userId = ((User) userDetails).getId();
-        OrderDTO orderDTO = orderService.createOrder(userId, address, phoneNumber, clientFullName, city, couponCode);
+        OrderDTO orderDTO = idempotencyService.execute(idempotencyKey, "user:" + userId,
+                Arrays.asList(clientFullName, city, address, phoneNumber, couponCode),
+                () -> orderService.createOrder(userId, address, phoneNumber, clientFullName, city, couponCode));
         return ResponseEntity.ok(orderDTO);
     }
 
     @PostMapping("/guest")
-    public ResponseEntity<OrderDTO> createGuestOrder(@RequestBody GuestOrderRequestDTO guestOrderRequest) {
-        OrderDTO orderDTO = orderService.createGuestOrder(guestOrderRequest);
+    public ResponseEntity<OrderDTO> createGuestOrder(@RequestBody GuestOrderRequestDTO guestOrderRequest,
+                                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        OrderDTO orderDTO = idempotencyService.execute(idempotencyKey, "guest", guestOrderRequest,
+                () -> orderService.createGuestOrder(guestOrderRequest));
         return ResponseEntity.ok(orderDTO);
     }
 
+    /**
+     * Admin order listing, keyset-paginated: pass {@code nextCursor} back as {@code after} for the next page.
+     * {@code from} and {@code to} are inclusive days.
+     */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        List<OrderDTO> orders = orderService.getAllOrders();
+    public ResponseEntity<CursorPageDTO<OrderDTO>> getAllOrders(@RequestParam(required = false) String after,
+                                                                @RequestParam(defaultValue = "createdAt") String sort,
+                                                                @RequestParam(defaultValue = "DESC") Sort.Direction direction,
+                                                                @RequestParam(defaultValue = "20") int size,
+                                                                @RequestParam(required = false) Order.OrderStatus status,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(required = false) String city,
+                                                                @RequestParam(required = false) String email,
+                                                                @RequestParam(required = false) String coupon) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        CursorPageDTO<OrderDTO> orders = orderService.getOrdersPage(after, sort, direction, pageSize,
+                status, startOf(from, to), endOf(to), city, email, coupon);
         return ResponseEntity.ok(orders);
     }
 
@@ -93,13 +129,32 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Streams the CSV export. {@code from} and {@code to} are inclusive days.
+     */
     @GetMapping("/export")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<String> exportOrders() {
-        String csv = orderService.exportOrdersToCsv();
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) Order.OrderStatus status) {
+        LocalDateTime fromTime = startOf(from, to);
+        LocalDateTime toTime = endOf(to);
+        StreamingResponseBody body = out -> orderExportService.exportOrdersToCsv(out, fromTime, toTime, status);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\"")
-                .contentType(org.springframework.http.MediaType.TEXT_PLAIN)
-                .body(csv);
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    // Date filters take inclusive days; the queries use [start of 'from', start of the day after 'to')
+    private static LocalDateTime startOf(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate to) {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
     }
-}
\ No newline at end of file
+}
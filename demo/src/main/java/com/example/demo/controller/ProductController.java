@@ -1,16 +1,24 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ConditionalGet;
+import com.example.demo.dto.CacheStatsDTO;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductFacetsDTO;
+import com.example.demo.dto.ProductPageDTO;
 import com.example.demo.dto.ProductVariantDto;
+import com.example.demo.dto.ResolvedVariantDTO;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -26,6 +34,13 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final String VIEW_CARD = "card";
+    private static final String VIEW_FULL = "full";
+
     // Add an ObjectMapper instance to manually handle JSON deserialization
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -64,8 +79,9 @@ public class ProductController {
     }
 
     @GetMapping("/suggestions")
-    public ResponseEntity<List<String>> getProductSuggestions(@RequestParam String query) {
-        return ResponseEntity.ok(productService.getProductSuggestions(query));
+    public ResponseEntity<List<String>> getProductSuggestions(@RequestParam String query,
+                                                              @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.getProductSuggestions(query, limit));
     }
 
     @PostMapping("/description-image")
@@ -81,21 +97,23 @@ public class ProductController {
 
 
     @GetMapping("/bestsellers")
-    public ResponseEntity<List<ProductDTO>> getBestsellers() {
-        return ResponseEntity.ok(productService.getBestsellers());
+    public ResponseEntity<List<?>> getBestsellers(@RequestParam(defaultValue = VIEW_CARD) String view) {
+        return ResponseEntity.ok(isFullView(view) ? productService.getBestsellers() : productService.getBestsellerCards());
     }
 
     @GetMapping("/new-arrivals")
-    public ResponseEntity<List<ProductDTO>> getNewArrivals() {
-        return ResponseEntity.ok(productService.getNewArrivals());
+    public ResponseEntity<List<?>> getNewArrivals(@RequestParam(defaultValue = VIEW_CARD) String view) {
+        return ResponseEntity.ok(isFullView(view) ? productService.getNewArrivals() : productService.getNewArrivalCards());
     }
 
     /**
      * UPDATED: This method now handles filtering, pagination, and sorting for products.
      * It accepts various request parameters to filter the results dynamically.
+     * Returns product cards by default; {@code view=full} returns complete products with variants.
+     * The page carries a {@code facets} block with the sidebar counts for the same filters.
      */
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
+    public ResponseEntity<ProductPageDTO<?>> getAllProducts(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) BigDecimal minPrice,
@@ -104,14 +122,47 @@ public class ProductController {
             @RequestParam(required = false) Boolean bestseller,
             @RequestParam(required = false) Boolean newArrival,
             @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = VIEW_CARD) String view,
             Pageable pageable) {
-        Page<ProductDTO> products = productService.getAllProducts(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type, pageable);
-        return ResponseEntity.ok(products);
+        ProductFacetsDTO facets = productService.getProductFacets(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type);
+        if (isFullView(view)) {
+            return ResponseEntity.ok(new ProductPageDTO<>(productService.getAllProducts(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type, pageable), facets));
+        }
+        return ResponseEntity.ok(new ProductPageDTO<>(productService.getProductCards(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type, pageable), facets));
+    }
+
+    /**
+     * Cursor-based variant of the listing for the storefront. It takes the same filters, but instead of
+     * page numbers it returns an opaque {@code nextCursor} to pass back as {@code after}, and no total count.
+     * Admin screens keep using the paged listing above.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<?>> scrollProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = VIEW_CARD) String view) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        if (isFullView(view)) {
+            return ResponseEntity.ok(productService.getProductsAfter(after, sort, direction, pageSize,
+                    search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type));
+        }
+        return ResponseEntity.ok(productService.getProductCardsAfter(after, sort, direction, pageSize,
+                search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        return conditionalGet.respond(request, "products", () -> productService.getProductById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -128,8 +179,31 @@ public class ProductController {
         return ResponseEntity.ok(variants);
     }
 
+    /**
+     * Resolves the selected options, passed as query parameters named after the variant types
+     * (e.g. {@code ?Size=M&Color=Red}), to a single variant with its price and stock. Other query
+     * parameters, such as cache busters, are ignored.
+     */
+    @GetMapping("/{id}/variants/resolve")
+    public ResponseEntity<ResolvedVariantDTO> resolveVariant(@PathVariable Long id, @RequestParam Map<String, String> options) {
+        if (options.isEmpty()) {
+            throw new BadRequestException("Select at least one option to resolve a variant");
+        }
+        return ResponseEntity.ok(productService.resolveVariant(id, options));
+    }
+
     @GetMapping("/packable")
     public ResponseEntity<List<ProductDTO>> getPackableProducts() {
         return ResponseEntity.ok(productService.getPackableProducts());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStatistics() {
+        return ResponseEntity.ok(productService.getCacheStatistics());
+    }
+
+    private static boolean isFullView(String view) {
+        return VIEW_FULL.equalsIgnoreCase(view);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ConditionalGet;
+import com.example.demo.cache.ResourceVersions;
 import com.example.demo.model.Setting;
 import com.example.demo.repositories.SettingRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -21,17 +24,24 @@ public class SettingsController {
     @Autowired
     private SettingRepository settingRepository;
 
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     /**
      * Retrieves all settings as a map of key-value pairs.
      * This endpoint is public to allow the frontend to fetch the Pixel ID.
      * @return A map of all settings.
      */
     @GetMapping
-    public ResponseEntity<Map<String, String>> getSettings() {
-        List<Setting> settings = settingRepository.findAll();
-        Map<String, String> settingsMap = settings.stream()
-                .collect(Collectors.toMap(Setting::getSettingKey, Setting::getValue));
-        return ResponseEntity.ok(settingsMap);
+    public ResponseEntity<Map<String, String>> getSettings(WebRequest request) {
+        return conditionalGet.respond(request, "settings", () -> {
+            List<Setting> settings = settingRepository.findAll();
+            return settings.stream()
+                    .collect(Collectors.toMap(Setting::getSettingKey, Setting::getValue));
+        });
     }
 
     /**
@@ -49,6 +59,7 @@ public class SettingsController {
             setting.setValue(value);
             settingRepository.save(setting);
         });
+        resourceVersions.bump(ResourceVersions.SETTINGS);
         return ResponseEntity.ok().body(Map.of("message", "Settings saved successfully"));
     }
 }
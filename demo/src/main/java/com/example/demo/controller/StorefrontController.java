@@ -0,0 +1,93 @@
+package com.example.demo.controller;
+
+import com.example.demo.cache.ConditionalGet;
+import com.example.demo.service.StorefrontService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/storefront")
+@RequiredArgsConstructor
+public class StorefrontController {
+
+    private final StorefrontService storefrontService;
+    private final ConditionalGet conditionalGet;
+
+    /**
+     * Hero, announcement, countdown, settings, categories, bestsellers and new arrivals in one response.
+     * The body is written from pre-serialized bytes, gzipped when the client accepts it.
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getStorefront(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                WebRequest request) {
+        StorefrontService.Snapshot snapshot = storefrontService.getSnapshot();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // Each encoding is a different representation, so it gets its own strong ETag
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+        String cacheControl = conditionalGet.cacheControl("storefront");
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipped());
+        }
+        return response.body(snapshot.getJson());
+    }
+
+    /**
+     * True if the Accept-Encoding header allows gzip: listed as gzip (or x-gzip) with a non-zero q-value,
+     * or covered by a non-zero {@code *} without being refused explicitly.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+}
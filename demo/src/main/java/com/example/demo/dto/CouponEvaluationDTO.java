@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * What a coupon would do to a cart: the discount is already computed, so clients don't need to know the rules.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponEvaluationDTO {
+    private String code;
+    private BigDecimal subtotal;
+    private BigDecimal applicableSubtotal;
+    private BigDecimal discount;
+    private boolean freeShipping;
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesDTO {
+    private LocalDate date;
+    private long orders;
+    private long units;
+    private BigDecimal gross;
+    private BigDecimal discount;
+    private BigDecimal shipping;
+    // gross - discount + shipping
+    private BigDecimal net;
+}
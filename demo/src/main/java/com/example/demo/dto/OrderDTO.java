@@ -28,6 +28,10 @@ public class OrderDTO {
 
     private BigDecimal discountAmount;
     private String couponCode;
+    private BigDecimal shippingCost;
+    private BigDecimal subtotal;
+    private BigDecimal total;
+    private Integer itemCount;
 
     // --- NEW FIELDS END ---
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PasswordHashingStatsDTO {
+    private int threads;
+    private int queueCapacity;
+    private int queueDepth;
+    private int active;
+    private long completed;
+    private long rejected;
+    // Time spent hashing, and waiting in the queue before that
+    private double averageHashMillis;
+    private double maxHashMillis;
+    private double averageWaitMillis;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A price bucket: {@code min} inclusive, {@code max} exclusive, {@code max} is null for the last bucket.
+ */
+@Data
+@AllArgsConstructor
+public class PriceRangeFacetDTO {
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Counts for the filter sidebar. Each facet is counted with every active filter applied except
+ * its own, so picking a brand still shows how many products the other brands would give.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+    private long total;
+    private List<FacetValueDTO> brands;
+    private List<FacetValueDTO> categories;
+    private List<FacetValueDTO> types;
+    private List<PriceRangeFacetDTO> priceRanges;
+    private long bestsellers;
+    private long newArrivals;
+}
@@ -1,25 +1,49 @@
 package com.example.demo.dto;
 
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
-import lombok.AllArgsConstructor;
+import com.example.demo.model.Product;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
+/**
+ * What a product card needs, and nothing more: no description, comments or variants.
+ * Built directly from a column projection, see {@code ProductRepositoryCustom#findListing}.
+ */
 @Data
-@AllArgsConstructor
+@NoArgsConstructor
 public class ProductListDTO {
     private Long id;
-    @NotBlank(message = "Name is required")
     private String name;
-    @NotBlank(message = "Description is required")
-    private String description;
-    @Positive(message = "Price must be positive")
     private BigDecimal price;
-    @PositiveOrZero(message = "Qunatity must be positive or zero")
     private Integer quantity;
     private String image;
     private String brand; // Added brand
-}
\ No newline at end of file
+    private Long categoryId;
+    private String categoryName;
+    private Product.ProductType type;
+    private boolean bestseller;
+    private boolean newArrival;
+    private boolean hasVariants;
+
+    // Used by the criteria constructor projection; image is filled in afterwards
+    public ProductListDTO(Long id, String name, BigDecimal price, Integer quantity, String brand,
+                          Long categoryId, String categoryName, Product.ProductType type,
+                          Boolean bestseller, Boolean newArrival, Boolean hasVariants) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.quantity = quantity;
+        this.brand = brand;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.type = type;
+        this.bestseller = Boolean.TRUE.equals(bestseller);
+        this.newArrival = Boolean.TRUE.equals(newArrival);
+        this.hasVariants = Boolean.TRUE.equals(hasVariants);
+    }
+
+    public boolean isInStock() {
+        return quantity != null && quantity > 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
+
+/**
+ * A product listing page with the facet counts for the same filters.
+ * Serializes like every other page in this API ({@code content} and {@code page}, see
+ * {@code PageSerializationMode.VIA_DTO}), plus a {@code facets} block.
+ */
+public class ProductPageDTO<T> extends PagedModel<T> {
+
+    private final ProductFacetsDTO facets;
+
+    public ProductPageDTO(Page<T> page, ProductFacetsDTO facets) {
+        super(page);
+        this.facets = facets;
+    }
+
+    @JsonProperty
+    public ProductFacetsDTO getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ResolvedVariantDTO {
+    private Long variantId;
+    private Map<String, String> options;
+    private BigDecimal price;
+    private int stock;
+    private String imageUrl;
+
+    public boolean isInStock() {
+        return stock > 0;
+    }
+}
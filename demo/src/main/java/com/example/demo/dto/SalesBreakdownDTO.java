@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one product or category over a date range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBreakdownDTO {
+    private Long id;
+    private String name;
+    private long orders;
+    private long units;
+    private BigDecimal gross;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the storefront needs on first load, in one payload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorefrontDTO {
+    private HeroDTO hero;
+    private AnnouncementDTO announcement;
+    private CountdownDTO countdown;
+    private Map<String, String> settings;
+    private List<CategoryDTO> categories;
+    private List<ProductListDTO> bestsellers;
+    private List<ProductListDTO> newArrivals;
+}
@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Published when an email is written to the outbox, so the dispatcher can pick it up
+ * as soon as the surrounding transaction commits instead of on its next poll.
+ */
+public class EmailQueuedEvent {
+}
@@ -0,0 +1,30 @@
+package com.example.demo.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published whenever products are created, updated, deleted or have their stock changed.
+ * Listeners use it to keep in-memory catalog structures in sync with the database.
+ */
+@Getter
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, STOCK_CHANGED
+    }
+
+    private final Type type;
+    private final Set<Long> productIds;
+
+    public ProductChangedEvent(Type type, Collection<Long> productIds) {
+        this.type = type;
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public static ProductChangedEvent of(Type type, Long productId) {
+        return new ProductChangedEvent(type, Set.of(productId));
+    }
+}
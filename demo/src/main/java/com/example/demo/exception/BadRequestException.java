@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * A request parameter or body the client has to correct, such as a malformed pagination cursor or an
+ * inverted date range. Answered with 400 and the message.
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -6,8 +6,10 @@ import com.example.demo.model.Order;
 import com.example.demo.model.OrderItem;
 import com.example.demo.repositories.CouponRepository;
 import com.example.demo.repositories.UserRepository;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
@@ -39,12 +41,22 @@ public abstract class OrderMapper {
     @Mapping(target = "couponCode", expression = "java(order.getCoupon() != null ? order.getCoupon().getCode() : null)")
     public abstract OrderDTO toDTO(Order order);
 
+    // Listing rows: the stored totals and item count instead of the items themselves
+    @Named("summary")
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "orderItems", ignore = true)
+    @Mapping(target = "couponCode", expression = "java(order.getCoupon() != null ? order.getCoupon().getCode() : null)")
+    public abstract OrderDTO toSummaryDTO(Order order);
+
     @Mapping(target = "productId", source = "product.id")
     public abstract OrderItemDTO toOrderItemDTO(OrderItem orderItem);
 
     // --- List Mappings ---
     public abstract List<OrderDTO> toDTOs(List<Order> orders);
 
+    @IterableMapping(qualifiedByName = "summary")
+    public abstract List<OrderDTO> toSummaryDTOs(List<Order> orders);
+
     public abstract List<Order> toEntities(List<OrderDTO> orderDTOS);
 
     public abstract List<OrderItemDTO> toOrderItemDTOs(List<OrderItem> items);
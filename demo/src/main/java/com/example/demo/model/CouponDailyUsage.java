@@ -5,12 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
+/**
+ * Daily sales rollup per coupon, maintained alongside {@link SalesRollup}. {@code usageCount} is the number of orders.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_coupon_daily_usage_coupon_date", columnNames = {"coupon_id", "date"}))
 public class CouponDailyUsage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,4 +30,15 @@ public class CouponDailyUsage {
 
     @Column(nullable = false)
     private int usageCount;
+
+    private long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal gross = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal shipping = BigDecimal.ZERO;
 }
@@ -17,7 +17,11 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_deleted_created_at", columnList = "deleted, created_at"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_orders_user_created_at", columnList = "user_id, created_at")
+})
 public class Order {
 
     @Id
@@ -52,6 +56,16 @@ public class Order {
     // New field for shipping cost
     private BigDecimal shippingCost;
 
+    // Totals stored at checkout so listings, exports and reports don't have to sum the items.
+    // Null only for orders placed before these columns existed, until OrderTotalsBackfill has run.
+    @Column(precision = 12, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal total;
+
+    private Integer itemCount;
+
     public enum OrderStatus {
         PREPARING, DELIVERING, DELIVERED, CANCELED
     }
@@ -9,11 +9,28 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+// Fetch plans per use case. Hibernate can join-fetch at most one List collection per query,
+// so the remaining collections are loaded in batches (hibernate.default_batch_fetch_size).
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Product.LISTING_GRAPH, attributeNodes = @NamedAttributeNode("category")),
+        @NamedEntityGraph(name = Product.DETAIL_GRAPH, attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("images")
+        }),
+        @NamedEntityGraph(name = Product.EDIT_GRAPH, attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("variants")
+        })
+})
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+    public static final String LISTING_GRAPH = "Product.listing";
+    public static final String DETAIL_GRAPH = "Product.detail";
+    public static final String EDIT_GRAPH = "Product.edit";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,57 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily sales totals for the whole shop ({@code TOTAL}, dimension id 0), per product or per category.
+ * Rows are incremented when an order is placed and decremented when it is canceled, so reports never
+ * have to aggregate the orders table. Coupon totals live in {@link CouponDailyUsage}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_key", columnNames = {"dimension", "dimension_id", "date"}))
+public class SalesRollup {
+
+    public enum Dimension {
+        TOTAL, PRODUCT, CATEGORY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Dimension dimension;
+
+    @Column(name = "dimension_id", nullable = false)
+    private long dimensionId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private long orders;
+
+    private long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal gross = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal shipping = BigDecimal.ZERO;
+
+    public SalesRollup(Dimension dimension, long dimensionId, LocalDate date) {
+        this.dimension = dimension;
+        this.dimensionId = dimensionId;
+        this.date = date;
+    }
+}
@@ -3,14 +3,33 @@ package com.example.demo.repositories;
 import com.example.demo.model.Coupon;
 import com.example.demo.model.CouponDailyUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
-public interface CouponDailyUsageRepository extends JpaRepository<CouponDailyUsage, Long> {
+public interface CouponDailyUsageRepository extends JpaRepository<CouponDailyUsage, Long>, CouponDailyUsageRepositoryCustom {
     Optional<CouponDailyUsage> findByCouponAndDate(Coupon coupon, LocalDate date);
     List<CouponDailyUsage> findByCoupon(Coupon coupon);
+
+    // Orders placed with any coupon, per day
+    @Query("SELECT u.date as date, SUM(u.usageCount) as count FROM CouponDailyUsage u GROUP BY u.date HAVING SUM(u.usageCount) > 0 ORDER BY u.date")
+    List<Map<String, Object>> countUsageByDay();
+
+    @Query("SELECT u.date as date, u.usageCount as count FROM CouponDailyUsage u WHERE u.coupon.id = :couponId AND u.usageCount > 0 ORDER BY u.date")
+    List<Map<String, Object>> countUsageByDayForCoupon(@Param("couponId") Long couponId);
+
+    @Modifying
+    @Query("DELETE FROM CouponDailyUsage u WHERE u.coupon.id = :couponId")
+    void deleteByCouponId(@Param("couponId") Long couponId);
+
+    @Modifying
+    @Query("DELETE FROM CouponDailyUsage")
+    void deleteAllRollups();
 }
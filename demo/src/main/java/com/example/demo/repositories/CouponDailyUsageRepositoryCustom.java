@@ -0,0 +1,14 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.CouponDailyUsage;
+
+import java.util.Collection;
+
+public interface CouponDailyUsageRepositoryCustom {
+
+    /**
+     * Adds each delta's counters to its (coupon, date) row, creating missing rows, in one JDBC batch.
+     * Negative deltas subtract.
+     */
+    void increment(Collection<CouponDailyUsage> deltas);
+}
@@ -0,0 +1,45 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.CouponDailyUsage;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class CouponDailyUsageRepositoryCustomImpl implements CouponDailyUsageRepositoryCustom {
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO coupon_daily_usage (coupon_id, date, usage_count, units, gross, discount, shipping) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "usage_count = usage_count + VALUES(usage_count), units = units + VALUES(units), gross = gross + VALUES(gross), " +
+            "discount = discount + VALUES(discount), shipping = shipping + VALUES(shipping)";
+
+    private static final Comparator<CouponDailyUsage> KEY_ORDER = Comparator
+            .comparing((CouponDailyUsage usage) -> usage.getCoupon().getId())
+            .thenComparing(CouponDailyUsage::getDate);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CouponDailyUsageRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void increment(Collection<CouponDailyUsage> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<CouponDailyUsage> rows = deltas.stream().sorted(KEY_ORDER).toList();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getCoupon().getId());
+            ps.setDate(2, Date.valueOf(row.getDate()));
+            ps.setInt(3, row.getUsageCount());
+            ps.setLong(4, row.getUnits());
+            ps.setBigDecimal(5, row.getGross());
+            ps.setBigDecimal(6, row.getDiscount());
+            ps.setBigDecimal(7, row.getShipping());
+        });
+    }
+}
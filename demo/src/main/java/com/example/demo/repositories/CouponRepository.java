@@ -2,11 +2,33 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
     Optional<Coupon> findByCode(String code);
-}
\ No newline at end of file
+
+    // Applicability as plain ids, read straight from the join tables when compiling coupon rules
+    @Query("SELECT p.id FROM Coupon c JOIN c.applicableProducts p WHERE c.id = :couponId")
+    List<Long> findApplicableProductIds(@Param("couponId") Long couponId);
+
+    @Query("SELECT cat.id FROM Coupon c JOIN c.applicableCategories cat WHERE c.id = :couponId")
+    List<Long> findApplicableCategoryIds(@Param("couponId") Long couponId);
+
+    /**
+     * Uses the coupon once if it is under its usage limit. The check and the increment are one
+     * statement, so concurrent checkouts can never push the count past the limit.
+     *
+     * @return 1 if the use was counted, 0 if the limit is reached
+     */
+    @Modifying
+    @Query("UPDATE Coupon c SET c.timesUsed = COALESCE(c.timesUsed, 0) + 1 WHERE c.id = :couponId "
+            + "AND (c.usageLimit IS NULL OR c.usageLimit <= 0 OR COALESCE(c.timesUsed, 0) < c.usageLimit)")
+    int incrementUsage(@Param("couponId") Long couponId);
+}
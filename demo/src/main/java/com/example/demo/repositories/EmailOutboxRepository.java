@@ -0,0 +1,43 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // PENDING rows that are due, and SENDING rows whose claim has run out because their sender died
+    @Query("SELECT m.id FROM EmailOutboxMessage m WHERE m.status IN :statuses AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<Long> findDueIds(@Param("statuses") Collection<EmailOutboxMessage.Status> statuses, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims the given rows for one sender until {@code claimedUntil}. The due condition is checked again
+     * by the UPDATE, so when instances race for the same rows each row goes to exactly one of them.
+     */
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :sending, m.claimedBy = :claimedBy, m.nextAttemptAt = :claimedUntil " +
+            "WHERE m.id IN :ids AND m.status IN :statuses AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("statuses") Collection<EmailOutboxMessage.Status> statuses,
+              @Param("sending") EmailOutboxMessage.Status sending,
+              @Param("claimedBy") String claimedBy,
+              @Param("now") LocalDateTime now,
+              @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    List<EmailOutboxMessage> findByClaimedByAndStatusOrderByIdAsc(String claimedBy, EmailOutboxMessage.Status status);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.sentAt < :before")
+    int deleteSentBefore(@Param("status") EmailOutboxMessage.Status status, @Param("before") LocalDateTime before);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+}
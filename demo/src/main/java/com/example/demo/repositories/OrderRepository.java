@@ -4,17 +4,30 @@ package com.example.demo.repositories;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
 import com.example.demo.model.Coupon;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param; // Import Param
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     List<Order> findByUserAndDeletedFalseOrderByCreatedAtDesc(User user);
 
     List<Order> findByDeletedFalseOrderByCreatedAtDesc();
@@ -32,11 +45,49 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // This will allow finding orders based on their 'deleted' status.
     List<Order> findByDeleted(boolean deleted);
 
-    @Query("SELECT FUNCTION('DATE', o.createdAt) as date, COUNT(o) as count FROM Order o WHERE o.coupon IS NOT NULL GROUP BY FUNCTION('DATE', o.createdAt)")
-    List<Map<String, Object>> countByCouponUsageByDay();
+    // Sales rollup backfill: the next batch of order ids up to the highest id that existed when it started
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId AND o.id <= :maxId ORDER BY o.id")
+    List<Long> findIdsForBackfill(@Param("afterId") long afterId, @Param("maxId") long maxId, Pageable pageable);
+
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    // Row locks that keep a rollup rebuild batch and a concurrent status change from both counting an order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Totals backfill: the next batch of orders placed before subtotal/total/item_count were stored
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId AND o.subtotal IS NULL ORDER BY o.id")
+    List<Long> findIdsWithoutTotals(@Param("afterId") long afterId, Pageable pageable);
+
+    // Computes the stored totals of the orders in (afterId, upToId] from their items, in one statement.
+    // The items are aggregated in a derived table so MySQL never reads the table it is updating.
+    @Modifying
+    @Query(value = "UPDATE orders o LEFT JOIN (" +
+            "SELECT i.order_id, SUM(i.price * i.quantity) AS subtotal, SUM(i.quantity) AS item_count FROM order_item i " +
+            "WHERE i.order_id > :afterId AND i.order_id <= :upToId GROUP BY i.order_id) t ON t.order_id = o.id " +
+            "SET o.subtotal = COALESCE(t.subtotal, 0), o.item_count = COALESCE(t.item_count, 0), " +
+            "o.total = GREATEST(COALESCE(t.subtotal, 0) - COALESCE(o.discount_amount, 0) + COALESCE(o.shipping_cost, 0), 0) " +
+            "WHERE o.id > :afterId AND o.id <= :upToId AND o.subtotal IS NULL", nativeQuery = true)
+    int backfillTotals(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    // Loads the items of a page of orders in one query; already-loaded orders get their collection initialized
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    // Forward-only read for the CSV export. The fetch size makes the driver read through a
+    // server-side cursor (useCursorFetch=true) instead of buffering the whole result set.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.coupon WHERE o.deleted = false " +
+            "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+            "AND (:status IS NULL OR o.status = :status) ORDER BY o.id")
+    Stream<Order> streamForExport(@Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("status") Order.OrderStatus status);
 
-    // --- NEW METHOD START ---
-    @Query("SELECT FUNCTION('DATE', o.createdAt) as date, COUNT(o) as count FROM Order o WHERE o.coupon.id = :couponId GROUP BY FUNCTION('DATE', o.createdAt)")
-    List<Map<String, Object>> countByCouponUsageByDayForCoupon(@Param("couponId") Long couponId);
-    // --- NEW METHOD END ---
+    // Item lines for a chunk of exported orders: order id, product name, quantity, unit price
+    @Query("SELECT i.order.id, p.name, i.quantity, i.price FROM OrderItem i JOIN i.product p " +
+            "WHERE i.order.id IN :orderIds ORDER BY i.order.id, i.id")
+    List<Object[]> findExportLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -3,19 +3,69 @@ package com.example.demo.repositories;
 import com.example.demo.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
+    @EntityGraph(Product.LISTING_GRAPH)
     Page<Product> findByBestsellerIsTrue(Pageable pageable);
 
+    @EntityGraph(Product.LISTING_GRAPH)
     Page<Product> findByNewArrivalIsTrue(Pageable pageable);
 
-    List<Product> findByNameContainingIgnoreCase(String name);
-
+    @EntityGraph(Product.LISTING_GRAPH)
     List<Product> findByIsPackableTrue();
+
+    @Override
+    @EntityGraph(Product.LISTING_GRAPH)
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(Product.LISTING_GRAPH)
+    List<Product> findAll(Specification<Product> spec);
+
+    // Product page: category and images in one query, the other collections batch-loaded
+    @EntityGraph(Product.DETAIL_GRAPH)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findDetailById(@Param("id") Long id);
+
+    // Admin edit: the variants are replaced on save, so they are loaded up front
+    @EntityGraph(Product.EDIT_GRAPH)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findForEditById(@Param("id") Long id);
+
+    // Checkout: every product of an order in one query, with the category the coupon rules look at
+    @EntityGraph(Product.LISTING_GRAPH)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT p.id, p.name FROM Product p")
+    List<Object[]> findAllIdsAndNames();
+
+    @Query("SELECT p.id, p.name FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findIdsAndNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Facet attributes: id, brand, category id, category name, type, price, bestseller, newArrival
+    @Query("SELECT p.id, p.brand, c.id, c.name, p.type, p.price, p.bestseller, p.newArrival FROM Product p JOIN p.category c")
+    List<Object[]> findAllFacetRows();
+
+    @Query("SELECT p.id, p.brand, c.id, c.name, p.type, p.price, p.bestseller, p.newArrival FROM Product p JOIN p.category c WHERE p.id IN :ids")
+    List<Object[]> findFacetRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Units sold per product, used to rank autocomplete suggestions
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi GROUP BY oi.product.id")
+    List<Object[]> sumUnitsSoldByProduct();
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Runs the specification with the given order and row limit only.
+     * Unlike {@code findAll(spec, pageable)} this never issues a COUNT query and never uses OFFSET.
+     */
+    List<Product> findAllLimited(Specification<Product> spec, Sort sort, int limit);
+
+    /**
+     * Product cards for a listing page: selects only the card columns (plus one query for first images)
+     * instead of loading entities with their description, comments and variants.
+     */
+    Page<ProductListDTO> findListing(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Same projection as {@link #findListing(Specification, Pageable)} with a row limit and no COUNT query.
+     */
+    List<ProductListDTO> findListingLimited(Specification<Product> spec, Sort sort, int limit);
+
+    /**
+     * Takes the given quantities (product id to units) off stock with one conditional
+     * {@code UPDATE ... WHERE quantity >= n} per product, sent as a single JDBC batch.
+     * A product is only decremented if it has enough stock left; the ids of those that did not
+     * (or do not exist) are returned, and the caller is expected to roll back.
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,163 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE product SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Product> findAllLimited(Specification<Product> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        applySpecification(spec, root, query, cb);
+        query.select(root).orderBy(toOrders(sort, root, cb));
+        return entityManager.createQuery(query)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph(Product.LISTING_GRAPH))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Page<ProductListDTO> findListing(Specification<Product> spec, Pageable pageable) {
+        TypedQuery<ProductListDTO> query = listingQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductListDTO> content = withFirstImages(query.getResultList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductListDTO> findListingLimited(Specification<Product> spec, Sort sort, int limit) {
+        return withFirstImages(listingQuery(spec, sort).setMaxResults(limit).getResultList());
+    }
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantities) {
+        // Ascending ids so concurrent checkouts lock rows in the same order and cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                statement.setInt(1, line.getValue());
+                statement.setLong(2, line.getKey());
+                statement.setInt(3, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        // Relies on per-statement update counts, so the driver must not rewrite batches (rewriteBatchedStatements)
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 1) {
+                insufficient.add(lines.get(i).getKey());
+            }
+        }
+        return insufficient;
+    }
+
+    private TypedQuery<ProductListDTO> listingQuery(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListDTO> query = cb.createQuery(ProductListDTO.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Object, Object> category = root.join("category");
+        applySpecification(spec, root, query, cb);
+        query.select(cb.construct(ProductListDTO.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("price"),
+                root.get("quantity"),
+                root.get("brand"),
+                category.get("id"),
+                category.get("name"),
+                root.get("type"),
+                root.get("bestseller"),
+                root.get("newArrival"),
+                root.get("hasVariants")));
+        query.orderBy(toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * One extra query for the whole page. The card image is the product's first image, read with the
+     * same join the detail page's fetch plan uses, so it is the image the detail page shows first.
+     * The collection has no position column; ordering by anything else (e.g. the URL, which starts
+     * with a random UUID) would pick an image the admin has no control over.
+     */
+    private List<ProductListDTO> withFirstImages(List<ProductListDTO> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        List<Long> ids = products.stream().map(ProductListDTO::getId).toList();
+        List<Object[]> rows = entityManager
+                .createQuery("SELECT p.id, i FROM Product p JOIN p.images i WHERE p.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, String> firstImages = new HashMap<>();
+        for (Object[] row : rows) {
+            firstImages.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+        products.forEach(product -> product.setImage(firstImages.get(product.getId())));
+        return products;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        applySpecification(spec, root, query, cb);
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void applySpecification(Specification<Product> spec, Root<Product> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -3,8 +3,17 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.ProductVariant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
-}
\ No newline at end of file
+
+    // One row per variant attribute: variant id, price, stock, image, attribute name, attribute value
+    @Query("SELECT v.id, v.price, v.stock, v.imageUrl, KEY(a), VALUE(a) FROM ProductVariant v JOIN v.variantMap a " +
+            "WHERE v.product.id = :productId")
+    List<Object[]> findAttributeRowsByProductId(@Param("productId") Long productId);
+}
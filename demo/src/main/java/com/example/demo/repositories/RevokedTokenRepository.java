@@ -0,0 +1,30 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // Entries added since the last sync, including by other instances
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(LocalDateTime since);
+
+    // A plain INSERT rather than save(), which would overwrite an existing row instead of failing on the duplicate id
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (id, type, revoked_at, expires_at) VALUES (:id, 'TOKEN', :revokedAt, :expiresAt)",
+            nativeQuery = true)
+    void insertToken(@Param("id") String id, @Param("revokedAt") LocalDateTime revokedAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,36 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.SalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long>, SalesRollupRepositoryCustom {
+
+    List<SalesRollup> findByDimensionAndDimensionIdAndDateBetweenOrderByDateAsc(SalesRollup.Dimension dimension, long dimensionId, LocalDate from, LocalDate to);
+
+    // Totals per product or category over a date range: dimension id, orders, units, gross; best sellers first
+    @Query("SELECT r.dimensionId, SUM(r.orders), SUM(r.units), SUM(r.gross) FROM SalesRollup r " +
+            "WHERE r.dimension = :dimension AND r.date BETWEEN :from AND :to " +
+            "GROUP BY r.dimensionId HAVING SUM(r.orders) > 0 ORDER BY SUM(r.gross) DESC")
+    List<Object[]> sumByDimension(@Param("dimension") SalesRollup.Dimension dimension,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to,
+                                  Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup")
+    void deleteAllRollups();
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.dimension = :dimension AND r.dimensionId IN :ids")
+    void deleteByDimensionAndDimensionIdIn(@Param("dimension") SalesRollup.Dimension dimension, @Param("ids") Collection<Long> ids);
+}
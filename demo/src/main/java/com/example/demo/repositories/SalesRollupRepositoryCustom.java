@@ -0,0 +1,15 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.SalesRollup;
+
+import java.util.Collection;
+
+public interface SalesRollupRepositoryCustom {
+
+    /**
+     * Adds each delta's counters to its (dimension, dimension id, date) row, creating missing rows,
+     * with one {@code INSERT ... ON DUPLICATE KEY UPDATE} per row sent as a single JDBC batch.
+     * Negative deltas subtract.
+     */
+    void increment(Collection<SalesRollup> deltas);
+}
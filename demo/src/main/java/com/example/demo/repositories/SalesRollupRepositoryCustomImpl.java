@@ -0,0 +1,48 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.SalesRollup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class SalesRollupRepositoryCustomImpl implements SalesRollupRepositoryCustom {
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO sales_rollups (dimension, dimension_id, date, orders, units, gross, discount, shipping) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "orders = orders + VALUES(orders), units = units + VALUES(units), gross = gross + VALUES(gross), " +
+            "discount = discount + VALUES(discount), shipping = shipping + VALUES(shipping)";
+
+    // Rows are always touched in the same order so concurrent checkouts can't deadlock on them
+    private static final Comparator<SalesRollup> KEY_ORDER = Comparator
+            .comparing(SalesRollup::getDimension)
+            .thenComparingLong(SalesRollup::getDimensionId)
+            .thenComparing(SalesRollup::getDate);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalesRollupRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void increment(Collection<SalesRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<SalesRollup> rows = deltas.stream().sorted(KEY_ORDER).toList();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getDimension().name());
+            ps.setLong(2, row.getDimensionId());
+            ps.setDate(3, Date.valueOf(row.getDate()));
+            ps.setLong(4, row.getOrders());
+            ps.setLong(5, row.getUnits());
+            ps.setBigDecimal(6, row.getGross());
+            ps.setBigDecimal(7, row.getDiscount());
+            ps.setBigDecimal(8, row.getShipping());
+        });
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.FacetValueDTO;
+import com.example.demo.dto.PriceRangeFacetDTO;
+import com.example.demo.dto.ProductFacetsDTO;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts for the product listing, answered from one bitmap per facet value.
+ *
+ * Every product gets a dense slot number (slots of deleted products are reused), and each brand,
+ * category, type, price bucket and flag keeps a {@link BitSet} of the slots having it. Applying
+ * the listing filters is a bitmap intersection and a facet count is the cardinality of one more
+ * intersection, so the sidebar never costs a GROUP BY. Kept current from {@link ProductChangedEvent}s.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    private final ProductRepository productRepository;
+    private final BigDecimal[] priceBounds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final List<FacetRow> rows = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> brands = new HashMap<>();
+    private final Map<String, String> brandLabels = new HashMap<>();
+    private final Map<Long, BitSet> categories = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Product.ProductType, BitSet> types = new EnumMap<>(Product.ProductType.class);
+    private final BitSet[] priceBuckets;
+    private final BitSet bestsellers = new BitSet();
+    private final BitSet newArrivals = new BitSet();
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${search.facets.price-buckets:100,200,500,1000}") BigDecimal[] priceBounds) {
+        this.productRepository = productRepository;
+        this.priceBounds = priceBounds.clone();
+        Arrays.sort(this.priceBounds);
+        this.priceBuckets = new BitSet[this.priceBounds.length + 1];
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceBuckets[i] = new BitSet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> facetRows = productRepository.findAllFacetRows();
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            rows.clear();
+            freeSlots.clear();
+            live.clear();
+            brands.clear();
+            brandLabels.clear();
+            categories.clear();
+            categoryNames.clear();
+            types.clear();
+            for (BitSet bucket : priceBuckets) {
+                bucket.clear();
+            }
+            bestsellers.clear();
+            newArrivals.clear();
+            facetRows.forEach(row -> add(new FacetRow(row)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product facet index built with {} products", facetRows.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                List<Object[]> facetRows = productRepository.findFacetRowsByIdIn(event.getProductIds());
+                lock.writeLock().lock();
+                try {
+                    event.getProductIds().forEach(this::remove);
+                    facetRows.forEach(row -> add(new FacetRow(row)));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            case DELETED -> {
+                lock.writeLock().lock();
+                try {
+                    event.getProductIds().forEach(this::remove);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            case STOCK_CHANGED -> {
+                // Stock is not a facet
+            }
+        }
+    }
+
+    /**
+     * Counts the products matching the listing filters, with the same semantics as {@code ProductSpecification}.
+     * {@code productIds} are the search matches, {@code null} meaning no search.
+     */
+    public ProductFacetsDTO facets(Collection<Long> productIds, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                   String brand, Boolean bestseller, Boolean newArrival, String type) {
+        lock.readLock().lock();
+        try {
+            BitSet searchFilter = productIds != null ? slotsOf(productIds) : null;
+            BitSet brandFilter = brand != null && !brand.isEmpty() ? bitmap(brands.get(brand.toLowerCase())) : null;
+            BitSet categoryFilter = categoryId != null ? bitmap(categories.get(categoryId)) : null;
+            BitSet typeFilter = typeFilter(type);
+            BitSet priceFilter = minPrice != null || maxPrice != null ? priceRange(minPrice, maxPrice) : null;
+            BitSet bestsellerFilter = Boolean.TRUE.equals(bestseller) ? bestsellers : null;
+            BitSet newArrivalFilter = Boolean.TRUE.equals(newArrival) ? newArrivals : null;
+
+            // Each facet is counted against every filter but its own
+            BitSet all = intersect(searchFilter, brandFilter, categoryFilter, typeFilter, priceFilter, bestsellerFilter, newArrivalFilter);
+            BitSet exceptBrand = intersect(searchFilter, categoryFilter, typeFilter, priceFilter, bestsellerFilter, newArrivalFilter);
+            BitSet exceptCategory = intersect(searchFilter, brandFilter, typeFilter, priceFilter, bestsellerFilter, newArrivalFilter);
+            BitSet exceptType = intersect(searchFilter, brandFilter, categoryFilter, priceFilter, bestsellerFilter, newArrivalFilter);
+            BitSet exceptPrice = intersect(searchFilter, brandFilter, categoryFilter, typeFilter, bestsellerFilter, newArrivalFilter);
+            BitSet exceptBestseller = intersect(searchFilter, brandFilter, categoryFilter, typeFilter, priceFilter, newArrivalFilter);
+            BitSet exceptNewArrival = intersect(searchFilter, brandFilter, categoryFilter, typeFilter, priceFilter, bestsellerFilter);
+
+            List<FacetValueDTO> brandCounts = new ArrayList<>();
+            brands.forEach((key, slotsWithBrand) -> addCount(brandCounts, key, brandLabels.get(key), exceptBrand, slotsWithBrand));
+            List<FacetValueDTO> categoryCounts = new ArrayList<>();
+            categories.forEach((id, slotsInCategory) -> addCount(categoryCounts, String.valueOf(id), categoryNames.get(id), exceptCategory, slotsInCategory));
+            List<FacetValueDTO> typeCounts = new ArrayList<>();
+            types.forEach((productType, slotsOfType) -> addCount(typeCounts, productType.name(), productType.name(), exceptType, slotsOfType));
+
+            List<PriceRangeFacetDTO> priceCounts = new ArrayList<>();
+            for (int i = 0; i < priceBuckets.length; i++) {
+                BigDecimal min = i == 0 ? BigDecimal.ZERO : priceBounds[i - 1];
+                BigDecimal max = i < priceBounds.length ? priceBounds[i] : null;
+                priceCounts.add(new PriceRangeFacetDTO(min, max, intersectionSize(exceptPrice, priceBuckets[i])));
+            }
+
+            return new ProductFacetsDTO(all.cardinality(), sorted(brandCounts), sorted(categoryCounts), sorted(typeCounts), priceCounts,
+                    intersectionSize(exceptBestseller, bestsellers), intersectionSize(exceptNewArrival, newArrivals));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void add(FacetRow row) {
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            slot = rows.size();
+            rows.add(row);
+        } else {
+            rows.set(slot, row);
+        }
+        slots.put(row.productId, slot);
+        live.set(slot);
+
+        if (row.brandKey != null) {
+            brands.computeIfAbsent(row.brandKey, key -> new BitSet()).set(slot);
+            brandLabels.putIfAbsent(row.brandKey, row.brand);
+        }
+        if (row.categoryId != null) {
+            categories.computeIfAbsent(row.categoryId, id -> new BitSet()).set(slot);
+            categoryNames.put(row.categoryId, row.categoryName);
+        }
+        if (row.type != null) {
+            types.computeIfAbsent(row.type, productType -> new BitSet()).set(slot);
+        }
+        if (row.price != null) {
+            priceBuckets[bucketOf(row.price)].set(slot);
+        }
+        bestsellers.set(slot, row.bestseller);
+        newArrivals.set(slot, row.newArrival);
+    }
+
+    private void remove(Long productId) {
+        Integer slot = slots.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        FacetRow row = rows.set(slot, null);
+        live.clear(slot);
+        if (row.brandKey != null) {
+            clear(brands, row.brandKey, slot);
+            if (!brands.containsKey(row.brandKey)) {
+                brandLabels.remove(row.brandKey);
+            }
+        }
+        if (row.categoryId != null) {
+            clear(categories, row.categoryId, slot);
+            if (!categories.containsKey(row.categoryId)) {
+                categoryNames.remove(row.categoryId);
+            }
+        }
+        if (row.type != null) {
+            clear(types, row.type, slot);
+        }
+        if (row.price != null) {
+            priceBuckets[bucketOf(row.price)].clear(slot);
+        }
+        bestsellers.clear(slot);
+        newArrivals.clear(slot);
+        freeSlots.push(slot);
+    }
+
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(slot);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private int bucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price.compareTo(priceBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private BitSet slotsOf(Collection<Long> productIds) {
+        BitSet result = new BitSet();
+        for (Long productId : productIds) {
+            Integer slot = slots.get(productId);
+            if (slot != null) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    // Prices are not bitmaps per value, so an arbitrary range is a scan over the live slots
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        BitSet result = new BitSet();
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            BigDecimal price = rows.get(slot).price;
+            if (price != null
+                    && (minPrice == null || price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || price.compareTo(maxPrice) <= 0)) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    private BitSet typeFilter(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        try {
+            return bitmap(types.get(Product.ProductType.valueOf(type.toUpperCase())));
+        } catch (IllegalArgumentException e) {
+            // An unknown type does not filter, as in ProductSpecification
+            return null;
+        }
+    }
+
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet bitmap(BitSet bitmap) {
+        return bitmap != null ? bitmap : new BitSet();
+    }
+
+    private static long intersectionSize(BitSet base, BitSet bitmap) {
+        BitSet result = (BitSet) base.clone();
+        result.and(bitmap);
+        return result.cardinality();
+    }
+
+    private static void addCount(List<FacetValueDTO> counts, String value, String label, BitSet base, BitSet bitmap) {
+        long count = intersectionSize(base, bitmap);
+        if (count > 0) {
+            counts.add(new FacetValueDTO(value, label, count));
+        }
+    }
+
+    private static List<FacetValueDTO> sorted(List<FacetValueDTO> counts) {
+        counts.sort(Comparator.comparingLong(FacetValueDTO::getCount).reversed()
+                .thenComparing(FacetValueDTO::getLabel, Comparator.nullsLast(Comparator.naturalOrder())));
+        return counts;
+    }
+
+    private static final class FacetRow {
+        private final Long productId;
+        private final String brand;
+        private final String brandKey;
+        private final Long categoryId;
+        private final String categoryName;
+        private final Product.ProductType type;
+        private final BigDecimal price;
+        private final boolean bestseller;
+        private final boolean newArrival;
+
+        // Row layout of ProductRepository#findAllFacetRows
+        private FacetRow(Object[] row) {
+            this.productId = (Long) row[0];
+            this.brand = (String) row[1];
+            this.brandKey = brand != null && !brand.isEmpty() ? brand.toLowerCase() : null;
+            this.categoryId = (Long) row[2];
+            this.categoryName = (String) row[3];
+            this.type = (Product.ProductType) row[4];
+            this.price = (BigDecimal) row[5];
+            this.bestseller = Boolean.TRUE.equals(row[6]);
+            this.newArrival = Boolean.TRUE.equals(row[7]);
+        }
+    }
+}
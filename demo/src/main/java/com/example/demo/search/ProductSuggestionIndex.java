@@ -0,0 +1,207 @@
+package com.example.demo.search;
+
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocomplete over product names, answered entirely from memory.
+ *
+ * Every word start of every name is stored as a key in one sorted array, so a prefix lookup is a
+ * binary search followed by a short scan, and "lip" finds both "Lipstick" and "Matte Lipstick".
+ * Matches are ranked by units sold. The array is rebuilt copy-on-write when product names change,
+ * so lookups never take a lock. Sales only move the ranking, which is refreshed on a schedule
+ * ({@code search.suggestions.popularity-refresh-ms}) against the existing array instead of after
+ * every checkout.
+ */
+@Component
+public class ProductSuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestionIndex.class);
+
+    private final ProductRepository productRepository;
+
+    @Value("${search.suggestions.max-results:10}")
+    private int maxResults;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<Long, Long> unitsSold = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ProductSuggestionIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        names.clear();
+        unitsSold.clear();
+        for (Object[] row : productRepository.findAllIdsAndNames()) {
+            if (row[1] != null) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
+        loadUnitsSold();
+        publishSnapshot();
+        logger.info("Product suggestion index built with {} names", names.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                event.getProductIds().forEach(names::remove);
+                for (Object[] row : productRepository.findIdsAndNamesByIdIn(event.getProductIds())) {
+                    if (row[1] != null) {
+                        names.put((Long) row[0], (String) row[1]);
+                    }
+                }
+            }
+            case DELETED -> event.getProductIds().forEach(id -> {
+                names.remove(id);
+                unitsSold.remove(id);
+            });
+            // Stock moves with every checkout; the names are unchanged and sales are picked up by refreshPopularity
+            case STOCK_CHANGED -> {
+                return;
+            }
+        }
+        publishSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${search.suggestions.popularity-refresh-ms:300000}",
+            initialDelayString = "${search.suggestions.popularity-refresh-ms:300000}")
+    public void refreshPopularity() {
+        loadUnitsSold();
+        // Only the ranking array is replaced; the sorted keys are shared with the current snapshot
+        synchronized (this) {
+            Snapshot current = snapshot;
+            long[] popularity = new long[current.productIds.length];
+            for (int index = 0; index < popularity.length; index++) {
+                popularity[index] = unitsSold.getOrDefault(current.productIds[index], 0L);
+            }
+            snapshot = new Snapshot(current.keys, current.productIndexes, current.productIds, current.names, popularity);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} distinct product names having a word that starts with the prefix,
+     * most popular first. The limit is capped at {@code search.suggestions.max-results}.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.fold(prefix).trim();
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+
+        Set<Integer> matches = new HashSet<>();
+        for (int i = lowerBound(current.keys, key); i < current.keys.length && current.keys[i].startsWith(key); i++) {
+            matches.add(current.productIndexes[i]);
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingLong((Integer index) -> current.popularity[index]).reversed()
+                        .thenComparing(index -> current.names[index]))
+                .map(index -> current.names[index])
+                .distinct()
+                .limit(Math.min(limit, maxResults))
+                .toList();
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    private void loadUnitsSold() {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Object[] row : productRepository.sumUnitsSoldByProduct()) {
+            totals.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        unitsSold.keySet().retainAll(totals.keySet());
+        unitsSold.putAll(totals);
+    }
+
+    private synchronized void publishSnapshot() {
+        List<Map.Entry<Long, String>> products = new ArrayList<>(names.entrySet());
+        long[] productIds = new long[products.size()];
+        String[] productNames = new String[products.size()];
+        long[] popularity = new long[products.size()];
+
+        List<String> keys = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int index = 0; index < products.size(); index++) {
+            Map.Entry<Long, String> product = products.get(index);
+            productIds[index] = product.getKey();
+            productNames[index] = product.getValue();
+            popularity[index] = unitsSold.getOrDefault(product.getKey(), 0L);
+
+            String folded = TextAnalyzer.fold(product.getValue());
+            for (int start = 0; start < folded.length(); start++) {
+                boolean wordStart = Character.isLetterOrDigit(folded.charAt(start))
+                        && (start == 0 || !Character.isLetterOrDigit(folded.charAt(start - 1)));
+                if (wordStart) {
+                    keys.add(folded.substring(start));
+                    owners.add(index);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+
+        String[] sortedKeys = new String[order.length];
+        int[] productIndexes = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            productIndexes[i] = owners.get(order[i]);
+        }
+        snapshot = new Snapshot(sortedKeys, productIndexes, productIds, productNames, popularity);
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new long[0], new String[0], new long[0]);
+
+        // keys[i] is a name suffix starting at a word boundary, owned by product productIndexes[i]
+        private final String[] keys;
+        private final int[] productIndexes;
+        private final long[] productIds;
+        private final String[] names;
+        private final long[] popularity;
+
+        private Snapshot(String[] keys, int[] productIndexes, long[] productIds, String[] names, long[] popularity) {
+            this.keys = keys;
+            this.productIndexes = productIndexes;
+            this.productIds = productIds;
+            this.names = names;
+            this.popularity = popularity;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns free text into index terms: strips HTML, folds case and accents,
+ * splits on anything that is not a letter or digit, drops stop words and applies a light stemmer.
+ * The same analysis is used for documents and queries so both sides produce matching terms.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern HTML_TAGS = Pattern.compile("<[^>]*>");
+    private static final Pattern HTML_ENTITIES = Pattern.compile("&[a-zA-Z#0-9]+;");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with", "your", "you", "this", "that",
+            "de", "la", "le", "les", "des", "du", "et", "un", "une", "pour", "avec");
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String cleaned = HTML_ENTITIES.matcher(HTML_TAGS.matcher(text).replaceAll(" ")).replaceAll(" ");
+        for (String token : NON_WORD.split(fold(cleaned))) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cases the text and removes accents, keeping everything else (spaces, punctuation) as is.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A deliberately conservative suffix stripper (plurals, -ing, -ed, -ly).
+     * It only has to map the usual inflections of a word onto the same term, not produce real roots.
+     */
+    static String stem(String token) {
+        if (token.length() <= 3 || Character.isDigit(token.charAt(0))) {
+            return token;
+        }
+        if (token.endsWith("ies") && token.length() > 4) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("sses")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("ing") && token.length() > 5) {
+            return token.substring(0, token.length() - 3);
+        }
+        if (token.endsWith("ed") && token.length() > 4) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("ly") && token.length() > 4) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("es") && token.length() > 4
+                && (token.endsWith("shes") || token.endsWith("ches") || token.endsWith("xes") || token.endsWith("zes"))) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && !token.endsWith("is")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ResourceVersions;
 import com.example.demo.dto.AnnouncementDTO;
 import com.example.demo.model.Announcement;
 import com.example.demo.repositories.AnnouncementRepository;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 public class AnnouncementService {
 
     private final AnnouncementRepository announcementRepository;
+    private final ResourceVersions resourceVersions;
 
     public AnnouncementDTO getAnnouncement() {
         // Find by ID, or create a new default instance if not found.
@@ -40,6 +42,7 @@ public class AnnouncementService {
         announcement.setSticky(dto.isSticky()); // Update sticky
         announcement.setFontWeight(dto.getFontWeight()); // Update font weight
         Announcement savedAnnouncement = announcementRepository.save(announcement);
+        resourceVersions.bump(ResourceVersions.ANNOUNCEMENT);
         return toDto(savedAnnouncement);
     }
 
@@ -1,10 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ResourceVersions;
 import com.example.demo.dto.CategoryDTO;
+import com.example.demo.event.ProductChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.Category;
 import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -17,6 +21,9 @@ import java.util.stream.Collectors;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final S3Service s3Service; // Injected S3Service
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ResourceVersions resourceVersions;
 
     public CategoryDTO createCategory(CategoryDTO categoryDTO, MultipartFile image) throws IOException {
         Category category = new Category();
@@ -29,6 +36,7 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(category);
+        resourceVersions.bump(ResourceVersions.CATEGORIES);
         return toDto(savedCategory);
     }
 
@@ -54,6 +62,12 @@ public class CategoryService {
         }
 
         Category updatedCategory = categoryRepository.save(existingCategory);
+        resourceVersions.bump(ResourceVersions.CATEGORIES);
+        // Products carry the category name, so everything in the category is now stale
+        List<Long> productIds = productRepository.findIdsByCategoryId(id);
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, productIds));
+        }
         return toDto(updatedCategory);
     }
 
@@ -62,6 +76,7 @@ public class CategoryService {
             throw new ResourceNotFoundException("Category not found with ID: " + id);
         }
         categoryRepository.deleteById(id);
+        resourceVersions.bump(ResourceVersions.CATEGORIES);
     }
 
     private CategoryDTO toDto(Category category) {
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CommentDTO;
+import com.example.demo.event.ProductChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CommentMapper;
 import com.example.demo.model.Comment;
@@ -10,6 +11,7 @@ import com.example.demo.repositories.CommentRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -22,6 +24,7 @@ public class CommentService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CommentDTO addComment(Long productId, Long userId, CommentDTO commentDTO){
         Product product = productRepository.findById(productId)
@@ -33,6 +36,8 @@ public class CommentService {
         comment.setProduct(product);
         comment.setUser(user);
         Comment savedComment = commentRepository.save(comment);
+        // Product details embed their comments
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangedEvent.Type.UPDATED, productId));
         return commentMapper.toDTO(savedComment);
 
     }
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ResourceVersions;
 import com.example.demo.dto.CountdownDTO;
 import com.example.demo.mapper.CountdownMapper;
 import com.example.demo.model.Countdown;
@@ -19,6 +20,9 @@ public class CountdownService {
     @Autowired
     private CountdownMapper countdownMapper;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     public CountdownDTO getCountdown() {
         Optional<Countdown> countdown = countdownRepository.findAll().stream().findFirst();
         return countdown.map(countdownMapper::toDto).orElse(null);
@@ -38,6 +42,7 @@ public class CountdownService {
         countdown.setBackgroundColor(countdownDTO.getBackgroundColor());
         countdown.setTextColor(countdownDTO.getTextColor());
         Countdown savedCountdown = countdownRepository.save(countdown);
+        resourceVersions.bump(ResourceVersions.COUNTDOWN);
         return countdownMapper.toDto(savedCountdown);
     }
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 // isamil22/ecommerce-basic/ecommerce-basic-de52fb3f9923420c0ceb538f0eea6ad24aa94a25/demo/src/main/java/com/example/demo/service/CouponService.java
 package com.example.demo.service;
 
+import com.example.demo.cache.BoundedTtlCache;
+import com.example.demo.cache.CouponRules;
+import com.example.demo.dto.CartItemDTO;
 import com.example.demo.dto.CouponDTO;
+import com.example.demo.dto.CouponEvaluationDTO;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CouponMapper;
 import com.example.demo.model.Coupon;
 import com.example.demo.model.Order; // Import Order class
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CouponDailyUsageRepository;
 import com.example.demo.repositories.CouponRepository;
 import com.example.demo.repositories.OrderRepository; // Import OrderRepository
+import com.example.demo.repositories.ProductRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set; // Import Set
 import java.util.stream.Collectors;
@@ -25,6 +39,22 @@ public class CouponService {
     private final CouponRepository couponRepository;
     private final CouponMapper couponMapper;
     private final OrderRepository orderRepository; // Inject OrderRepository
+    private final CouponDailyUsageRepository couponDailyUsageRepository;
+    private final ProductRepository productRepository;
+
+    @Value("${coupon.rules.cache.max-size:1000}")
+    private int rulesCacheMaxSize;
+
+    @Value("${coupon.rules.cache.ttl-seconds:300}")
+    private long rulesCacheTtlSeconds;
+
+    // Compiled coupons by normalized code (see rulesKey), shared by coupon validation and checkout
+    private BoundedTtlCache<String, CouponRules> rulesCache;
+
+    @PostConstruct
+    void initCache() {
+        rulesCache = new BoundedTtlCache<>("coupon-rules", rulesCacheMaxSize, rulesCacheTtlSeconds * 1000);
+    }
 
     @Transactional
     public CouponDTO createCoupon(CouponDTO couponDTO) {
@@ -36,18 +66,93 @@ public class CouponService {
             coupon.setType(Coupon.CouponType.USER);
         }
         Coupon savedCoupon = couponRepository.save(coupon);
+        invalidateRules(savedCoupon.getCode());
         return couponMapper.toDTO(savedCoupon);
     }
 
+    /**
+     * The compiled rules for a coupon code, loaded with three small queries on a cache miss.
+     */
+    public CouponRules getRules(String code) {
+        String key = rulesKey(code);
+        return rulesCache.get(key, () -> {
+            Coupon coupon = couponRepository.findByCode(key)
+                    .orElseThrow(() -> new ResourceNotFoundException("Coupon with code " + code + " not found"));
+            return CouponRules.compile(coupon,
+                    couponRepository.findApplicableProductIds(coupon.getId()),
+                    couponRepository.findApplicableCategoryIds(coupon.getId()));
+        });
+    }
+
+    /**
+     * Checks a cart against a coupon's rules and works out the discount, in one pass over the lines.
+     * Usage limits and first-time-only coupons depend on live data and are checked by checkout itself.
+     */
+    public CouponRules.Evaluation evaluate(CouponRules rules, Collection<CouponRules.Line> lines) {
+        if (rules.isExpired(LocalDateTime.now())) {
+            throw new IllegalStateException("Coupon has expired.");
+        }
+        CouponRules.Evaluation evaluation = rules.evaluate(lines);
+        if (!rules.meetsMinimum(evaluation.subtotal())) {
+            throw new IllegalStateException("Order total does not meet the minimum purchase amount for this coupon.");
+        }
+        if (!evaluation.applicable()) {
+            throw new IllegalStateException("This coupon is not valid for the items in your cart.");
+        }
+        return evaluation;
+    }
+
+    /**
+     * Previews a coupon on a cart with the same rules checkout applies. Prices come from the catalog, not the request.
+     */
+    @Transactional(readOnly = true)
+    public CouponEvaluationDTO evaluateCoupon(String code, List<CartItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("The cart is empty");
+        }
+        CouponRules rules = getRules(code);
+        Map<Long, Product> products = productRepository.findWithCategoryByIdIn(items.stream()
+                        .map(CartItemDTO::getProductId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
+        List<CouponRules.Line> lines = items.stream().map(item -> {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + item.getProductId());
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new BadRequestException("Quantity must be positive");
+            }
+            return new CouponRules.Line(product.getId(), product.getCategory().getId(), product.getPrice(), item.getQuantity());
+        }).collect(Collectors.toList());
+
+        CouponRules.Evaluation evaluation = evaluate(rules, lines);
+        return new CouponEvaluationDTO(rules.getCode(), evaluation.subtotal(), evaluation.applicableSubtotal(),
+                evaluation.discount(), evaluation.freeShipping());
+    }
+
     public CouponDTO validateCoupon(String code) {
-        Coupon coupon = couponRepository.findByCode(code)
-                .orElseThrow(() -> new ResourceNotFoundException("Coupon with code " + code + " not found"));
+        CouponRules rules = getRules(code);
 
-        if (coupon.getExpiryDate().isBefore(LocalDateTime.now())) {
+        if (rules.isExpired(LocalDateTime.now())) {
             throw new IllegalStateException("Coupon has expired");
         }
 
-        return couponMapper.toDTO(coupon);
+        // The coupon's terms as compiled; the live usage count is left out
+        CouponDTO coupon = new CouponDTO();
+        coupon.setId(rules.getId());
+        coupon.setName(rules.getName());
+        coupon.setCode(rules.getCode());
+        coupon.setDiscountValue(rules.getDiscountValue());
+        coupon.setDiscountType(rules.getDiscountType());
+        coupon.setExpiryDate(rules.getExpiryDate());
+        coupon.setType(rules.getType());
+        coupon.setMinPurchaseAmount(rules.getMinPurchaseAmount());
+        coupon.setUsageLimit(rules.getUsageLimit());
+        coupon.setFirstTimeOnly(rules.isFirstTimeOnly());
+        return coupon;
     }
 
     @Transactional(readOnly = true)
@@ -68,16 +173,42 @@ public class CouponService {
             orderRepository.save(order);
         }
 
+        couponDailyUsageRepository.deleteByCouponId(id);
         couponRepository.deleteById(id);
+        invalidateRules(coupon.getCode());
     }
 
+    // Read from the daily coupon rollups maintained by SalesRollupService; canceled orders are not counted
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getCouponUsageStatistics() {
-        return orderRepository.countByCouponUsageByDay();
+        return couponDailyUsageRepository.countUsageByDay();
     }
 
     // --- NEW METHOD START ---
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getCouponUsageStatisticsById(Long couponId) {
-        return orderRepository.countByCouponUsageByDayForCoupon(couponId);
+        return couponDailyUsageRepository.countUsageByDayForCoupon(couponId);
     }
     // --- NEW METHOD END ---
-}
\ No newline at end of file
+
+    // Drops the compiled rules now and again after commit, so a request that reads the old row
+    // before the transaction commits can't leave stale rules in the cache
+    private void invalidateRules(String code) {
+        String key = rulesKey(code);
+        rulesCache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rulesCache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    // Codes are matched case-insensitively by the database, so SAVE10 and save10 must share one entry;
+    // otherwise invalidating one spelling would leave the others cached
+    private static String rulesKey(String code) {
+        return code != null ? code.trim().toUpperCase(Locale.ROOT) : null;
+    }
+}
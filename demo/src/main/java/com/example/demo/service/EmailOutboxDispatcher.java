@@ -0,0 +1,204 @@
+package com.example.demo.service;
+
+import com.example.demo.event.EmailQueuedEvent;
+import com.example.demo.model.EmailOutboxMessage;
+import com.example.demo.repositories.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the email outbox on a single background thread.
+ *
+ * Pending messages are sent in batches through one {@code JavaMailSender.send(...)} call, which opens
+ * one SMTP connection for the whole batch instead of one per email. Failed messages are retried with
+ * exponential backoff and given up on after {@code email.outbox.max-attempts}.
+ *
+ * Several instances can share the outbox: each batch is claimed with a conditional UPDATE before it is
+ * sent, so a row is only ever sent by the instance that claimed it. A claim lasts
+ * {@code email.outbox.claim-timeout-ms}; rows of an instance that died mid-batch are picked up again
+ * after that, so delivery is at-least-once. Sent rows are deleted after {@code email.outbox.retention-days}.
+ *
+ * The worker is woken right after a transaction that queued mail commits, and by a periodic poll
+ * that picks up retries. At most one drain runs and at most one more is queued; extra wake-ups are dropped.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final List<EmailOutboxMessage.Status> CLAIMABLE =
+            List.of(EmailOutboxMessage.Status.PENDING, EmailOutboxMessage.Status.SENDING);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor worker;
+    private final String dispatcherId = UUID.randomUUID().toString();
+
+    @Value("${spring.mail.from}")
+    private String fromEmail;
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${email.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${email.outbox.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    @Value("${email.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, JavaMailSender mailSender,
+                                 PlatformTransactionManager transactionManager) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        wakeUp();
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    public void wakeUp() {
+        worker.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        Integer removed = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteSentBefore(EmailOutboxMessage.Status.SENT, before));
+        if (removed != null && removed > 0) {
+            logger.debug("Purged {} sent outbox emails", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+    }
+
+    private void drain() {
+        try {
+            List<EmailOutboxMessage> batch;
+            do {
+                batch = claimBatch();
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } while (!batch.isEmpty());
+        } catch (RuntimeException e) {
+            logger.error("Email outbox dispatch failed, will retry on the next poll", e);
+        }
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = emailOutboxRepository.findDueIds(CLAIMABLE, now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            LocalDateTime claimedUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(claimTimeoutMs));
+            // Rows another instance claimed first are simply not ours; the next batch moves past them
+            emailOutboxRepository.claim(ids, CLAIMABLE, EmailOutboxMessage.Status.SENDING, dispatcherId, now, claimedUntil);
+            return emailOutboxRepository.findByClaimedByAndStatusOrderByIdAsc(dispatcherId, EmailOutboxMessage.Status.SENDING);
+        });
+    }
+
+    private void deliver(List<EmailOutboxMessage> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            messages[i] = toMailMessage(batch.get(i));
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) {
+                Arrays.stream(messages).forEach(message -> failures.put(message, e));
+            }
+        } catch (MailException e) {
+            // Connection or authentication problems fail the whole batch
+            Arrays.stream(messages).forEach(message -> failures.put(message, e));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutboxMessage outboxMessage = batch.get(i);
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                outboxMessage.setStatus(EmailOutboxMessage.Status.SENT);
+                outboxMessage.setSentAt(now);
+                outboxMessage.setLastError(null);
+            } else {
+                recordFailure(outboxMessage, failure, now);
+            }
+        }
+        emailOutboxRepository.saveAll(batch);
+        if (!failures.isEmpty()) {
+            logger.warn("{} of {} outbox emails could not be sent", failures.size(), batch.size());
+        }
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception failure, LocalDateTime now) {
+        message.setStatus(EmailOutboxMessage.Status.PENDING);
+        message.setAttempts(message.getAttempts() + 1);
+        String error = String.valueOf(failure.getMessage());
+        message.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(EmailOutboxMessage.Status.FAILED);
+            logger.error("Giving up on email {} to {} after {} attempts", message.getId(), message.getRecipient(), message.getAttempts());
+            return;
+        }
+        long backoff = Math.min(maxBackoffMs, retryBackoffMs << Math.min(message.getAttempts() - 1, 20));
+        message.setNextAttemptAt(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)));
+    }
+
+    private SimpleMailMessage toMailMessage(EmailOutboxMessage outboxMessage) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(outboxMessage.getRecipient());
+        message.setSubject(outboxMessage.getSubject());
+        message.setText(outboxMessage.getBody());
+        return message;
+    }
+}
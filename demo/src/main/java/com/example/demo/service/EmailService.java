@@ -1,45 +1,45 @@
 package com.example.demo.service;
 
+import com.example.demo.event.EmailQueuedEvent;
+import com.example.demo.model.EmailOutboxMessage;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.repositories.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+/**
+ * Queues transactional emails in the outbox. Nothing here talks to SMTP: the row is saved in the
+ * caller's transaction (so an order and its confirmation commit or roll back together) and
+ * {@link EmailOutboxDispatcher} delivers it in the background.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.from}")
-    private String fromEmail;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public void sendOrderConfirmation(Order order){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(order.getUser().getEmail());
-        message.setSubject("Order confirmation");
-        message.setText("Your order has been confirmed. Order ID " + order.getId());
-        mailSender.send(message);
+        enqueue(order.getUser().getEmail(),
+                "Order confirmation",
+                "Your order has been confirmed. Order ID " + order.getId());
     }
 
     public void sendConfirmationCode(User user){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Confirm your email");
-        message.setText("Please confirm your email by entering this code " + user.getConfirmationCode());
-        mailSender.send(message);
+        enqueue(user.getEmail(),
+                "Confirm your email",
+                "Please confirm your email by entering this code " + user.getConfirmationCode());
     }
 
     public void sendPasswordResetEmail(User user, String resetLink) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Password Reset Request");
-        message.setText("To reset your password, please click the link below:\n" + resetLink);
-        mailSender.send(message);
+        enqueue(user.getEmail(),
+                "Password Reset Request",
+                "To reset your password, please click the link below:\n" + resetLink);
+    }
+
+    private void enqueue(String recipient, String subject, String body) {
+        emailOutboxRepository.save(new EmailOutboxMessage(recipient, subject, body));
+        eventPublisher.publishEvent(new EmailQueuedEvent());
     }
-}
\ No newline at end of file
+}
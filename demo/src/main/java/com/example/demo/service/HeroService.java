@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ResourceVersions;
 import com.example.demo.dto.HeroDTO;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.HeroMapper;
@@ -17,6 +18,7 @@ public class HeroService {
     private final HeroRepository heroRepository;
     private final HeroMapper heroMapper;
     private final S3Service s3Service; // Injected S3Service
+    private final ResourceVersions resourceVersions;
 
     public HeroDTO getHero() {
         Hero hero = heroRepository.findById(1L).orElseGet(() -> {
@@ -47,6 +49,7 @@ public class HeroService {
         }
 
         Hero updatedHero = heroRepository.save(hero);
+        resourceVersions.bump(ResourceVersions.HERO);
         return heroMapper.toDTO(updatedHero);
     }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BoundedTtlCache;
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Makes order submission safe to retry with an {@code Idempotency-Key} header.
+ *
+ * The first request with a key runs checkout and stores the resulting {@link OrderDTO} in the same
+ * transaction as the order, so either both exist or neither does. Later requests with the same key
+ * get the stored order back without running checkout again; requests that arrive while the first
+ * one is still running wait for it. Responses are kept in memory and in the {@code idempotency_records}
+ * table for {@code idempotency.ttl-hours}, so retries still work after a restart or on another instance.
+ *
+ * Keys are scoped per caller, and a key reused with a different request body is rejected.
+ * Failed requests store nothing: retrying them runs checkout again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedTtlCache<String, StoredResponse> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlHours;
+    private final long waitTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.cache.max-entries:10000}") int maxEntries,
+                              @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.completed = new BoundedTtlCache<>("idempotency-keys", maxEntries, TimeUnit.HOURS.toMillis(ttlHours));
+        this.ttlHours = ttlHours;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Runs {@code checkout} at most once per key and scope and returns its order.
+     * Without a key the checkout simply runs.
+     *
+     * @param scope   who the key belongs to, so two callers can never see each other's orders
+     * @param request the request parameters; a key may only be replayed with the same ones
+     */
+    public OrderDTO execute(String idempotencyKey, String scope, Object request, Supplier<OrderDTO> checkout) {
+        if (idempotencyKey == null) {
+            return checkout.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String keyHash = sha256(scope + "\n" + idempotencyKey);
+        String requestHash = sha256(fingerprint(request));
+
+        while (true) {
+            StoredResponse stored = completed.getIfPresent(keyHash);
+            if (stored != null) {
+                return stored.replay(requestHash);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, mine);
+            if (running == null) {
+                return runFirst(keyHash, requestHash, mine, checkout);
+            }
+            stored = await(running);
+            if (stored != null) {
+                return stored.replay(requestHash);
+            }
+            // The request we waited for failed and stored nothing, so this one gets to try
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            logger.debug("Purged {} expired idempotency records", removed);
+        }
+    }
+
+    private OrderDTO runFirst(String keyHash, String requestHash, CompletableFuture<StoredResponse> mine, Supplier<OrderDTO> checkout) {
+        try {
+            StoredResponse stored = load(keyHash);
+            if (stored == null) {
+                try {
+                    stored = checkoutAndStore(keyHash, requestHash, checkout);
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance committed this key first and our transaction was rolled back
+                    stored = load(keyHash);
+                    if (stored == null) {
+                        throw e;
+                    }
+                }
+            }
+            completed.put(keyHash, stored);
+            mine.complete(stored);
+            return stored.replay(requestHash);
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(keyHash, mine);
+        }
+    }
+
+    private StoredResponse checkoutAndStore(String keyHash, String requestHash, Supplier<OrderDTO> checkout) {
+        return transactionTemplate.execute(status -> {
+            OrderDTO order = checkout.get();
+            LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+            idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(keyHash, requestHash, writeOrder(order), expiresAt));
+            return new StoredResponse(requestHash, order);
+        });
+    }
+
+    private StoredResponse load(String keyHash) {
+        return idempotencyRecordRepository.findById(keyHash)
+                .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(record -> new StoredResponse(record.getRequestHash(), readOrder(record.getResponseBody())))
+                .orElse(null);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this " + HEADER + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request with the same " + HEADER);
+        } catch (ExecutionException e) {
+            // Never completed exceptionally: failures complete with null
+            return null;
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String writeOrder(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private OrderDTO readOrder(String json) {
+        try {
+            return objectMapper.readValue(json, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final OrderDTO response;
+
+        private StoredResponse(String requestHash, OrderDTO response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+
+        private OrderDTO replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new BadRequestException(HEADER + " was already used for a different request");
+            }
+            return response;
+        }
+    }
+}
@@ -1,59 +1,219 @@
 package com.example.demo.service;
 
+import com.example.demo.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies the two kinds of tokens: short-lived access tokens sent with every request, and
+ * long-lived refresh tokens that are only accepted by {@code /api/auth/refresh} to get a new pair.
+ * Either can be revoked through {@link TokenDenylistService}.
+ */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
+    private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+
+    // Carried in the token so requests can be authenticated without loading the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    private final TokenDenylistService tokenDenylistService;
+
     @Value("${jwt.secret}")
     private String secret;
+    // Access token lifetime
     @Value("${jwt.expiration}")
     private Long expiration;
+    @Value("${jwt.refresh-expiration}")
+    private Long refreshExpiration;
+
+    @Value("${jwt.verified-cache.enabled:true}")
+    private boolean verifiedCacheEnabled;
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
+    // Thread-safe once built; reused so the signing key isn't decoded again for every request
+    private JwtParser parser;
+
+    // Access tokens that already passed verification, by token hash. Read on every authenticated request, so
+    // lookups must not lock; expired entries are skipped on read and removed by purgeVerifiedTokens.
+    private final Map<String, AccessToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * What an access token says, copied out of its claims once it has been verified. Immutable, so one
+     * instance can be shared by every request presenting the same token.
+     */
+    public record AccessToken(String id, String subject, Long userId, String role, Date issuedAt, long expiresAt) {
+        public AccessToken {
+            issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        }
+
+        @Override
+        public Date issuedAt() {
+            return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        }
+
+        private static AccessToken of(Claims claims) {
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            return new AccessToken(claims.getId(), claims.getSubject(), userId != null ? userId.longValue() : null,
+                    claims.get(ROLE_CLAIM, String.class), claims.getIssuedAt(), claims.getExpiration().getTime());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder().setSigningKey(secret).build();
+    }
 
     public String generateToken(UserDetails userDetails){
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_CLAIM, user.getRole().name());
+        }
+        return createToken(claims, userDetails.getUsername(), expiration);
+    }
+
+    public String generateRefreshToken(User user){
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE);
+        return createToken(claims, user.getUsername(), refreshExpiration);
+    }
+
+    public long getAccessTokenLifetimeSeconds(){
+        return expiration / 1000;
     }
-    private String createToken(Map<String, Object> claims, String subject){
+
+    private String createToken(Map<String, Object> claims, String subject, long lifetimeMillis){
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis()+expiration))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + lifetimeMillis))
                 .signWith(SignatureAlgorithm.HS256, secret)
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails){
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Verifies an access token, or returns null if it is invalid, expired, revoked or a refresh token. A
+     * token seen before is answered from the verified-token cache without any signature check or JSON
+     * parsing; the denylist is still consulted every time.
+     */
+    public AccessToken parseToken(String token){
+        String tokenHash = null;
+        AccessToken accessToken = null;
+        if (verifiedCacheEnabled) {
+            tokenHash = hash(token);
+            accessToken = verifiedTokens.get(tokenHash);
+            if (accessToken != null && accessToken.expiresAt() <= System.currentTimeMillis()) {
+                verifiedTokens.remove(tokenHash, accessToken);
+                return null;
+            }
+        }
+        if (accessToken == null) {
+            Claims claims = verify(token);
+            if (claims == null || REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM))) {
+                return null;
+            }
+            accessToken = AccessToken.of(claims);
+            // When full, new tokens are verified on every request until the next purge makes room
+            if (verifiedCacheEnabled && verifiedTokens.size() < verifiedCacheMaxSize) {
+                verifiedTokens.putIfAbsent(tokenHash, accessToken);
+            }
+        }
+        boolean revoked = tokenDenylistService.isRevoked(accessToken.id(), accessToken.userId(), accessToken.issuedAt());
+        return revoked ? null : accessToken;
     }
 
-    public String extractUsername (String token){
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Verifies a refresh token and uses it up, returning its claims, or null if it is invalid, expired,
+     * revoked or not a refresh token. Each refresh token is redeemed at most once, even by concurrent
+     * requests on different instances. A second attempt means the token was copied, so every token of
+     * the user is revoked and they have to log in again.
+     */
+    public Claims redeemRefreshToken(String token){
+        Claims claims = verify(token);
+        if (claims == null || !REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM)) || claims.getId() == null) {
+            return null;
+        }
+        Long userId = claims.get(USER_ID_CLAIM, Number.class).longValue();
+        // Only the user-wide revocation here: the token's own id is checked by claiming it
+        if (tokenDenylistService.isRevoked(null, userId, claims.getIssuedAt())) {
+            return null;
+        }
+        if (!tokenDenylistService.claimToken(claims.getId(), claims.getExpiration())) {
+            logger.warn("Refresh token {} of user {} was used again, revoking all of the user's tokens", claims.getId(), userId);
+            tokenDenylistService.revokeUser(userId);
+            return null;
+        }
+        return claims;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver){
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public String extractUsername(String token){
+        AccessToken accessToken = parseToken(token);
+        return accessToken != null ? accessToken.subject() : null;
     }
-    private Claims extractAllClaims(String token){
-        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+
+    /**
+     * Makes a token unusable before it expires, e.g. on logout. Invalid tokens and tokens issued
+     * before tokens had ids are ignored.
+     */
+    public void revoke(String token){
+        Claims claims = verify(token);
+        if (claims == null || claims.getId() == null) {
+            return;
+        }
+        tokenDenylistService.revokeToken(claims.getId(), claims.getExpiration());
+        verifiedTokens.remove(hash(token));
     }
 
-    private Boolean isTokenExpired(String token){
-        return extractExpiration(token).before(new Date());
+    @Scheduled(fixedDelayString = "${jwt.verified-cache.purge-interval-ms:60000}")
+    public void purgeVerifiedTokens() {
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(accessToken -> accessToken.expiresAt() <= now);
     }
-    private Date extractExpiration(String token){
-        return extractClaim(token, Claims::getExpiration);
+
+    private Claims verify(String token){
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String hash(String token){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Order;
+import com.example.demo.repositories.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Writes the order CSV export straight to the response stream.
+ *
+ * Orders are read through a forward-only stream and handled in chunks: the item lines of a chunk are
+ * loaded with one query, the chunk is written and flushed, and the persistence context is cleared,
+ * so memory use does not grow with the number of orders.
+ *
+ * Each order produces an ORDER row with its totals followed by one ITEM row per line.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final String HEADER = "Record,Order ID,Created At,Status,Customer Name,City,Address,Phone Number,Coupon,"
+            + "Product,Quantity,Unit Price,Line Total,Subtotal,Discount,Shipping,Total";
+
+    private final OrderRepository orderRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.orders.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * @param from   first day to include (inclusive), or null
+     * @param to     last created-at instant to include (exclusive), or null
+     * @param status only orders in this status, or null for all
+     */
+    @Transactional(readOnly = true)
+    public void exportOrdersToCsv(OutputStream out, LocalDateTime from, LocalDateTime to, Order.OrderStatus status) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+        writer.write("\r\n");
+
+        try (Stream<Order> orders = orderRepository.streamForExport(from, to, status)) {
+            List<Order> chunk = new ArrayList<>(chunkSize);
+            Iterator<Order> it = orders.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == chunkSize) {
+                    writeChunk(writer, chunk);
+                }
+            }
+            writeChunk(writer, chunk);
+        }
+        writer.flush();
+    }
+
+    private void writeChunk(Writer writer, List<Order> chunk) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Object[]>> linesByOrder = new HashMap<>();
+        List<Long> orderIds = chunk.stream().map(Order::getId).toList();
+        for (Object[] line : orderRepository.findExportLinesByOrderIdIn(orderIds)) {
+            linesByOrder.computeIfAbsent((Long) line[0], id -> new ArrayList<>()).add(line);
+        }
+
+        for (Order order : chunk) {
+            List<Object[]> lines = linesByOrder.getOrDefault(order.getId(), List.of());
+            writeOrder(writer, order, lines);
+        }
+        writer.flush();
+
+        // The stream only holds the current row, so detaching everything read so far is safe
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    private void writeOrder(Writer writer, Order order, List<Object[]> lines) throws IOException {
+        BigDecimal discount = Objects.requireNonNullElse(order.getDiscountAmount(), BigDecimal.ZERO);
+        BigDecimal shipping = Objects.requireNonNullElse(order.getShippingCost(), BigDecimal.ZERO);
+        BigDecimal subtotal = order.getSubtotal();
+        BigDecimal total = order.getTotal();
+        if (subtotal == null || total == null) {
+            // Not backfilled yet: work the totals out from the lines
+            subtotal = BigDecimal.ZERO;
+            for (Object[] line : lines) {
+                subtotal = subtotal.add(lineTotal(line));
+            }
+            total = subtotal.subtract(discount).add(shipping).max(BigDecimal.ZERO);
+        }
+
+        writeRow(writer,
+                "ORDER",
+                String.valueOf(order.getId()),
+                order.getCreatedAt() == null ? "" : order.getCreatedAt().toString(),
+                order.getStatus() == null ? "" : order.getStatus().name(),
+                text(order.getClientFullName()),
+                text(order.getCity()),
+                text(order.getAddress()),
+                text(order.getPhoneNumber()),
+                order.getCoupon() == null ? "" : text(order.getCoupon().getCode()),
+                "", "", "", "",
+                subtotal.toPlainString(),
+                discount.toPlainString(),
+                shipping.toPlainString(),
+                total.toPlainString());
+
+        for (Object[] line : lines) {
+            writeRow(writer,
+                    "ITEM",
+                    String.valueOf(order.getId()),
+                    "", "", "", "", "", "", "",
+                    text((String) line[1]),
+                    String.valueOf(line[2]),
+                    line[3] == null ? "" : ((BigDecimal) line[3]).toPlainString(),
+                    lineTotal(line).toPlainString(),
+                    "", "", "", "");
+        }
+    }
+
+    private static BigDecimal lineTotal(Object[] line) {
+        if (line[2] == null || line[3] == null) {
+            return BigDecimal.ZERO;
+        }
+        return ((BigDecimal) line[3]).multiply(BigDecimal.valueOf((Integer) line[2]));
+    }
+
+    private static void writeRow(Writer writer, String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(cells[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Escapes a free-text cell (RFC 4180). Values that a spreadsheet would read as a formula are
+     * prefixed with a quote so an order's name or address can't run in the admin's spreadsheet.
+     */
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.CouponRules;
 import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartItemDTO;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.GuestOrderRequestDTO;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.InsufficientStockException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CartMapper;
@@ -12,20 +17,25 @@ import com.example.demo.repositories.CouponRepository;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
-import jakarta.persistence.EntityNotFoundException;
+import com.example.demo.specification.OrderCursor;
+import com.example.demo.specification.OrderSpecification;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.mail.MailException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,6 +51,10 @@ public class OrderService {
     private final OrderMapper orderMapper;
     private final CartMapper cartMapper;
     private final CouponRepository couponRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderSpecification orderSpecification;
+    private final CouponService couponService;
+    private final SalesRollupService salesRollupService;
 
     @Transactional
     public OrderDTO createGuestOrder(GuestOrderRequestDTO request) {
@@ -72,35 +86,27 @@ public class OrderService {
         // Set a default shipping cost
         order.setShippingCost(new BigDecimal("10.00"));
 
-        // Create OrderItems directly from the DTO, checking stock
+        // Create OrderItems directly from the DTO; stock is taken in one batch below
+        Map<Long, Product> products = loadProducts(request.getCartItems().stream()
+                .map(CartItemDTO::getProductId)
+                .collect(Collectors.toList()));
         List<OrderItem> orderItems = request.getCartItems().stream().map(itemDTO -> {
-            Product product = productRepository.findById(itemDTO.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemDTO.getProductId()));
-
-            if (product.getQuantity() < itemDTO.getQuantity()) {
-                throw new InsufficientStockException("Not enough stock for product " + product.getName());
-            }
-
-            // Decrease product stock
-            product.setQuantity(product.getQuantity() - itemDTO.getQuantity());
-            productRepository.save(product);
-
+            Product product = products.get(itemDTO.getProductId());
             return new OrderItem(null, order, product, itemDTO.getQuantity(), product.getPrice());
         }).collect(Collectors.toList());
 
+        decrementStock(orderItems);
         order.setItems(orderItems);
+        publishStockChanged(orderItems);
 
         // Coupon and Total Calculation Logic would be added here, similar to the createOrder method
         order.setDiscountAmount(BigDecimal.ZERO);
-
+        applyTotals(order);
 
         Order savedOrder = orderRepository.save(order);
+        salesRollupService.recordOrder(savedOrder);
 
-        try {
-            emailService.sendOrderConfirmation(savedOrder);
-        } catch (MailException e) {
-            logger.error("Failed to send guest order confirmation email for order ID " + savedOrder.getId(), e);
-        }
+        emailService.sendOrderConfirmation(savedOrder);
 
         return orderMapper.toDTO(savedOrder);
     }
@@ -119,15 +125,12 @@ public class OrderService {
             throw new IllegalStateException("Cannot create an order with an empty cart");
         }
 
-        // ======================= FIX START =======================
         // The cart object from the mapper has products with only an ID.
-        // We need to load the full product details for each cart item.
-        for (CartItem item : cart.getItems()) {
-            Product fullProduct = productRepository.findById(item.getProduct().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found in cart with ID: " + item.getProduct().getId()));
-            item.setProduct(fullProduct);
-        }
-        // ======================== FIX END ========================
+        // Load them all at once; coupon rules, subtotal and order items then work on these instances.
+        Map<Long, Product> products = loadProducts(cart.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toList()));
+        cart.getItems().forEach(item -> item.setProduct(products.get(item.getProduct().getId())));
 
         Order order = new Order();
         order.setUser(user);
@@ -141,140 +144,138 @@ public class OrderService {
         order.setShippingCost(new BigDecimal("10.00"));
 
 
-        BigDecimal subtotal = calculateSubtotal(cart.getItems());
-
+        Long couponId = null;
         if (couponCode != null && !couponCode.trim().isEmpty()) {
-            Coupon coupon = couponRepository.findByCode(couponCode)
-                    .orElseThrow(() -> new ResourceNotFoundException("Coupon not found: " + couponCode));
-
-            // === Start of Validation Logic ===
+            CouponRules rules = couponService.getRules(couponCode);
+            CouponRules.Evaluation evaluation = couponService.evaluate(rules, cart.getItems().stream()
+                    .map(item -> new CouponRules.Line(item.getProduct().getId(), item.getProduct().getCategory().getId(),
+                            item.getProduct().getPrice(), item.getQuantity()))
+                    .collect(Collectors.toList()));
 
-            if (coupon.getExpiryDate().isBefore(LocalDateTime.now())) {
-                throw new IllegalStateException("Coupon has expired.");
-            }
-            if (coupon.getUsageLimit() > 0 && coupon.getTimesUsed() >= coupon.getUsageLimit()) {
-                throw new IllegalStateException("Coupon has reached its usage limit.");
-            }
-            if (coupon.getMinPurchaseAmount() != null && subtotal.compareTo(coupon.getMinPurchaseAmount()) < 0) {
-                throw new IllegalStateException("Order total does not meet the minimum purchase amount for this coupon.");
-            }
-
-            // New: First-Time Customer Validation
-            // Corrected method call from existsByUserId to existsByUser_Id
-            if (coupon.isFirstTimeOnly() && orderRepository.existsByUser_Id(userId)) {
+            if (rules.isFirstTimeOnly() && orderRepository.existsByUser_Id(userId)) {
                 throw new IllegalStateException("This coupon is for first-time customers only.");
             }
 
-            // New: Product/Category Specific Validation
-            boolean isApplicable = isCouponApplicableToCart(coupon, cart);
-            if (!isApplicable) {
-                throw new IllegalStateException("This coupon is not valid for the items in your cart.");
-            }
-
-            // === End of Validation Logic ===
-
-
-            // === Start of Discount Calculation ===
-            BigDecimal discountAmount = BigDecimal.ZERO;
-            if (coupon.getDiscountType() == Coupon.DiscountType.FIXED_AMOUNT) {
-                discountAmount = coupon.getDiscountValue();
-            } else if (coupon.getDiscountType() == Coupon.DiscountType.PERCENTAGE) {
-                // Apply percentage discount only on applicable items
-                BigDecimal applicableSubtotal = getApplicableSubtotal(coupon, cart);
-                discountAmount = applicableSubtotal.multiply(coupon.getDiscountValue().divide(new BigDecimal("100")));
-            }
-
-            // Handle Free Shipping
-            if (coupon.getDiscountType() == Coupon.DiscountType.FREE_SHIPPING) {
+            if (evaluation.freeShipping()) {
                 order.setShippingCost(BigDecimal.ZERO);
             }
-            // === End of Discount Calculation ===
-
-            order.setCoupon(coupon);
-            order.setDiscountAmount(discountAmount);
-
-            coupon.setTimesUsed(coupon.getTimesUsed() + 1);
-            couponRepository.save(coupon);
+            order.setCoupon(couponRepository.getReferenceById(rules.getId()));
+            order.setDiscountAmount(evaluation.discount());
+            couponId = rules.getId();
         } else {
             order.setDiscountAmount(BigDecimal.ZERO);
         }
 
         List<OrderItem> orderItems = createOrderItems(cart, order);
+        decrementStock(orderItems);
         order.setItems(orderItems);
+        publishStockChanged(orderItems);
+
+        // Counted last, so the coupon row stays locked for as little of the checkout as possible
+        if (couponId != null && couponRepository.incrementUsage(couponId) == 0) {
+            throw new IllegalStateException("Coupon has reached its usage limit.");
+        }
 
+        applyTotals(order);
         Order savedOrder = orderRepository.save(order);
+        salesRollupService.recordOrder(savedOrder);
         cartService.clearCart(userId);
 
-        try {
-            emailService.sendOrderConfirmation(savedOrder);
-        } catch (MailException e) {
-            logger.error("Failed to send order confirmation email for order ID " + savedOrder.getId(), e);
-        }
+        emailService.sendOrderConfirmation(savedOrder);
         return orderMapper.toDTO(savedOrder);
     }
 
     private List<OrderItem> createOrderItems(Cart cart, Order order) {
-        return cart.getItems().stream().map(cartItem -> {
-            Product product = productRepository.findById(cartItem.getProduct().getId())
-                    .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + cartItem.getProduct().getId()));
-
-            if (product.getQuantity() == null) {
-                throw new IllegalStateException("Product quantity is not set for product " + product.getName());
-            }
-            if (product.getQuantity() < cartItem.getQuantity()) {
-                throw new InsufficientStockException("Not enough stock for product " + product.getName());
-            }
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
-
-            return new OrderItem(null, order, product, cartItem.getQuantity(), product.getPrice());
-        }).collect(Collectors.toList());
+        return cart.getItems().stream()
+                .map(cartItem -> new OrderItem(null, order, cartItem.getProduct(), cartItem.getQuantity(), cartItem.getProduct().getPrice()))
+                .collect(Collectors.toList());
     }
 
-    private boolean isCouponApplicableToCart(Coupon coupon, Cart cart) {
-        boolean productSpecific = coupon.getApplicableProducts() != null && !coupon.getApplicableProducts().isEmpty();
-        boolean categorySpecific = coupon.getApplicableCategories() != null && !coupon.getApplicableCategories().isEmpty();
-
-        // If not restricted by product or category, it's applicable to the whole cart
-        if (!productSpecific && !categorySpecific) {
-            return true;
+    // Stores the order's totals; items, discount and shipping must be final by now
+    private void applyTotals(Order order) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int itemCount = 0;
+        for (OrderItem item : order.getItems()) {
+            subtotal = subtotal.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            itemCount += item.getQuantity();
         }
-
-        return cart.getItems().stream().anyMatch(item -> {
-            boolean matchesProduct = productSpecific && coupon.getApplicableProducts().contains(item.getProduct());
-            boolean matchesCategory = categorySpecific && coupon.getApplicableCategories().contains(item.getProduct().getCategory());
-            return matchesProduct || matchesCategory;
-        });
+        BigDecimal discount = Objects.requireNonNullElse(order.getDiscountAmount(), BigDecimal.ZERO);
+        BigDecimal shipping = Objects.requireNonNullElse(order.getShippingCost(), BigDecimal.ZERO);
+        order.setSubtotal(subtotal);
+        order.setItemCount(itemCount);
+        order.setTotal(subtotal.subtract(discount).add(shipping).max(BigDecimal.ZERO));
     }
 
-    private BigDecimal getApplicableSubtotal(Coupon coupon, Cart cart) {
-        boolean productSpecific = coupon.getApplicableProducts() != null && !coupon.getApplicableProducts().isEmpty();
-        boolean categorySpecific = coupon.getApplicableCategories() != null && !coupon.getApplicableCategories().isEmpty();
+    private Map<Long, Product> loadProducts(List<Long> productIds) {
+        Set<Long> ids = productIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findWithCategoryByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : productIds) {
+            if (productId == null || !products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
 
-        if (!productSpecific && !categorySpecific) {
-            return calculateSubtotal(cart.getItems()); // Apply to whole cart if no restrictions
+    /**
+     * Takes the ordered quantities off stock with conditional updates instead of read-modify-write,
+     * so concurrent checkouts of the same product can never oversell it. Throwing rolls back the
+     * decrements that did succeed along with the rest of the order.
+     */
+    private void decrementStock(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (OrderItem item : orderItems) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new BadRequestException("Invalid quantity for product " + item.getProduct().getName());
+            }
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            names.put(item.getProduct().getId(), item.getProduct().getName());
         }
 
-        return cart.getItems().stream()
-                .filter(item -> {
-                    boolean matchesProduct = productSpecific && coupon.getApplicableProducts().contains(item.getProduct());
-                    boolean matchesCategory = categorySpecific && item.getProduct().getCategory() != null && coupon.getApplicableCategories().contains(item.getProduct().getCategory());
-                    return matchesProduct || matchesCategory;
-                })
-                .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<Long> insufficient = productRepository.decrementStock(quantities);
+        if (!insufficient.isEmpty()) {
+            throw new InsufficientStockException("Not enough stock for product " + insufficient.stream()
+                    .map(names::get)
+                    .collect(Collectors.joining(", ")));
+        }
     }
 
-    private BigDecimal calculateSubtotal(List<CartItem> items) {
-        return items.stream()
-                .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void publishStockChanged(List<OrderItem> orderItems) {
+        Set<Long> productIds = orderItems.stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet());
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.STOCK_CHANGED, productIds));
     }
 
 
+
+    /**
+     * One page of the admin order listing, newest first by default. Keyset pagination: pass the returned
+     * {@code nextCursor} back as {@code after}. Orders (with their coupon) come from one query; the rows
+     * carry the stored totals and item count instead of the items, so no item join is needed.
+     */
     @Transactional(readOnly = true)
-    public List<OrderDTO> getAllOrders() {
-        return orderMapper.toDTOs(orderRepository.findByDeleted(false));
+    public CursorPageDTO<OrderDTO> getOrdersPage(String after, String sortField, Sort.Direction direction, int size,
+                                                 Order.OrderStatus status, LocalDateTime from, LocalDateTime to,
+                                                 String city, String email, String couponCode) {
+        OrderCursor cursor = after != null && !after.isBlank() ? OrderCursor.decode(after) : null;
+        OrderCursor.SortField field = cursor != null ? cursor.getField() : OrderCursor.SortField.fromParameter(sortField);
+        Sort.Direction order = cursor != null ? cursor.getDirection() : direction;
+
+        Specification<Order> spec = orderSpecification.getAdminOrders(status, from, to, city, email, couponCode);
+        if (cursor != null) {
+            spec = spec.and(cursor.toSpecification());
+        }
+
+        List<Order> rows = orderRepository.findBy(spec, query -> query.sortBy(OrderCursor.sort(field, order)).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Order> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? OrderCursor.after(content.get(content.size() - 1), field, order).encode() : null;
+        return new CursorPageDTO<>(orderMapper.toSummaryDTOs(content), nextCursor, hasNext);
     }
 
     public List<OrderDTO> getUserOrders(Long userId) {
@@ -282,11 +283,14 @@ public class OrderService {
         return orderMapper.toDTOs(orderRepository.findByUser_Id(userId));
     }
 
+    @Transactional
     public OrderDTO updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        salesRollupService.recordStatusChange(updatedOrder, previousStatus);
         return orderMapper.toDTO(updatedOrder);
     }
 
@@ -310,26 +314,9 @@ public class OrderService {
         return orderMapper.toDTOs(orderRepository.findByDeleted(true));
     }
 
+    @Transactional
     public void deleteAllOrders() {
         orderRepository.deleteAll();
-    }
-
-    public String exportOrdersToCsv() {
-        List<Order> orders = orderRepository.findByDeleted(false);
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        pw.println("Order ID,Customer Name,City,Address,Phone Number,Status,Created At");
-        for (Order order : orders) {
-            pw.println(String.join(",",
-                    String.valueOf(order.getId()),
-                    order.getClientFullName(),
-                    order.getCity(),
-                    order.getAddress(),
-                    order.getPhoneNumber(),
-                    String.valueOf(order.getStatus()),
-                    String.valueOf(order.getCreatedAt())
-            ));
-        }
-        return sw.toString();
+        salesRollupService.clear();
     }
 }
\ No newline at end of file
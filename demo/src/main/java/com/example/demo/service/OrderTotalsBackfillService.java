@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.repositories.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills in the stored subtotal, total and item count of orders placed before checkout started saving them.
+ *
+ * Runs on a background thread after startup, one batch of orders per transaction, each batch a single
+ * UPDATE over an id range. Only orders whose totals are still missing are touched, so it is safe to run
+ * again and does nothing once every order has its totals.
+ */
+@Service
+public class OrderTotalsBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderTotalsBackfillService.class);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService backfillExecutor;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    @Value("${orders.totals.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${orders.totals.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    public OrderTotalsBackfillService(OrderRepository orderRepository, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-totals-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (backfillOnStartup) {
+            startBackfill();
+        }
+    }
+
+    public void startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return;
+        }
+        backfillExecutor.execute(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                logger.error("Order totals backfill failed", e);
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int updated = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = orderRepository.findIdsWithoutTotals(afterId, PageRequest.of(0, backfillBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            long from = afterId;
+            long upTo = ids.get(ids.size() - 1);
+            Integer count = transactionTemplate.execute(status -> orderRepository.backfillTotals(from, upTo));
+            updated += count == null ? 0 : count;
+            afterId = upTo;
+        }
+        if (updated > 0) {
+            logger.info("Stored totals for {} existing orders in {} ms", updated, System.currentTimeMillis() - started);
+        }
+    }
+}
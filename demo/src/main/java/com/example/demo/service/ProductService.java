@@ -1,25 +1,51 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.BoundedTtlCache;
+import com.example.demo.cache.VariantIndex;
+import com.example.demo.dto.CacheStatsDTO;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductFacetsDTO;
+import com.example.demo.dto.ProductListDTO;
 import com.example.demo.dto.ProductVariantDto;
+import com.example.demo.dto.ResolvedVariantDTO;
 import com.example.demo.dto.VariantTypeDto;
+import com.example.demo.event.ProductChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.ProductMapper;
 import com.example.demo.model.*;
 import com.example.demo.repositories.CategoryRepository;
 import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.ProductVariantRepository;
+import com.example.demo.search.ProductFacetIndex;
+import com.example.demo.search.ProductSearchIndex;
+import com.example.demo.search.ProductSuggestionIndex;
+import com.example.demo.specification.ProductCursor;
 import com.example.demo.specification.ProductSpecification;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,6 +66,51 @@ public class ProductService {
     @Autowired
     private ProductSpecification productSpecification;
 
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.cache.max-size:2000}")
+    private int cacheMaxSize;
+
+    @Value("${catalog.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private static final String BESTSELLERS = "bestsellers";
+    private static final String NEW_ARRIVALS = "new-arrivals";
+    private static final String PACKABLE = "packable";
+
+    // Mapped DTOs for the public catalog reads, kept in sync through ProductChangedEvent
+    private BoundedTtlCache<Long, ProductDTO> productCache;
+    private BoundedTtlCache<String, List<ProductDTO>> productListCache;
+    private BoundedTtlCache<String, List<ProductListDTO>> productCardListCache;
+    private BoundedTtlCache<Long, VariantIndex> variantIndexCache;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initCaches() {
+        productCache = new BoundedTtlCache<>("products", cacheMaxSize, cacheTtlSeconds * 1000);
+        productListCache = new BoundedTtlCache<>("product-lists", 16, cacheTtlSeconds * 1000);
+        productCardListCache = new BoundedTtlCache<>("product-card-lists", 16, cacheTtlSeconds * 1000);
+        variantIndexCache = new BoundedTtlCache<>("variant-indexes", cacheMaxSize, cacheTtlSeconds * 1000);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     @Transactional
     public ProductDTO createProductWithImages(ProductDTO productDTO, List<MultipartFile> images) throws IOException {
         // Validate product data
@@ -72,6 +143,7 @@ public class ProductService {
         updateVariantsForProduct(product, productDTO);
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangedEvent.Type.CREATED, savedProduct.getId()));
         return productMapper.toDTO(savedProduct);
     }
 
@@ -84,7 +156,7 @@ public class ProductService {
             validateProductVariants(productDTO);
         }
 
-        Product existingProduct = productRepository.findById(id)
+        Product existingProduct = productRepository.findForEditById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
 
         // Update basic fields
@@ -109,10 +181,16 @@ public class ProductService {
         updateVariantsForProduct(existingProduct, productDTO);
 
         Product updatedProduct = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangedEvent.Type.UPDATED, updatedProduct.getId()));
         return productMapper.toDTO(updatedProduct);
     }
 
     private void updateVariantsForProduct(Product product, ProductDTO productDTO) {
+        // The resolution index is rebuilt from the new variants on its next lookup; new variant ids only exist after the flush
+        if (product.getId() != null) {
+            variantIndexCache.invalidate(product.getId());
+        }
+
         // Clear existing variants
         product.getVariantTypes().clear();
         product.getVariants().clear();
@@ -224,6 +302,21 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Resolves selected options (e.g. Size=M, Color=Red) to a variant through the product's variant index.
+     * Option names and values are matched case-insensitively, in any order.
+     */
+    public ResolvedVariantDTO resolveVariant(Long productId, Map<String, String> selection) {
+        VariantIndex index = cached(variantIndexCache, productId, () -> {
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+            return VariantIndex.fromAttributeRows(productVariantRepository.findAttributeRowsByProductId(productId));
+        });
+        return index.resolve(selection)
+                .orElseThrow(() -> new ResourceNotFoundException("No variant of product " + productId + " matches " + selection));
+    }
+
     public String uploadAndGetImageUrl(MultipartFile image) throws IOException {
         return s3Service.saveImage(image);
     }
@@ -240,40 +333,165 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lists products matching the filters. A search term is resolved against the in-memory search index;
+     * without an explicit sort the matches come back in relevance order, otherwise in the requested order.
+     */
     @Transactional(readOnly = true)
     public Page<ProductDTO> getAllProducts(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type, Pageable pageable) {
-        Specification<Product> spec = productSpecification.getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, type);
-        return productRepository.findAll(spec, pageable)
-                .map(productMapper::toDTO);
+        List<Long> searchIds = resolveSearch(search);
+        if (searchIds != null && searchIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Specification<Product> spec = productSpecification.getProducts(searchIds, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, type);
+        if (searchIds == null || pageable.getSort().isSorted() || pageable.isUnpaged()) {
+            return productRepository.findAll(spec, pageable)
+                    .map(productMapper::toDTO);
+        }
+        return pageByRelevance(productRepository.findAll(spec), Product::getId, searchIds, pageable, productMapper::toDTO);
     }
 
+    /**
+     * Same listing as {@link #getAllProducts} but as lightweight product cards read from a column projection.
+     */
     @Transactional(readOnly = true)
-    public List<String> getProductSuggestions(String query) {
-        List<Product> products = productRepository.findByNameContainingIgnoreCase(query);
-        return products.stream()
-                .map(Product::getName)
-                .collect(Collectors.toList());
+    public Page<ProductListDTO> getProductCards(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type, Pageable pageable) {
+        List<Long> searchIds = resolveSearch(search);
+        if (searchIds != null && searchIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Specification<Product> spec = productSpecification.getProducts(searchIds, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, type);
+        if (searchIds == null || pageable.getSort().isSorted() || pageable.isUnpaged()) {
+            return productRepository.findListing(spec, pageable);
+        }
+        List<ProductListDTO> matches = productRepository.findListingLimited(spec, Sort.unsorted(), searchIds.size());
+        return pageByRelevance(matches, ProductListDTO::getId, searchIds, pageable, Function.identity());
     }
 
+    /**
+     * Keyset-paginated listing for the storefront: no COUNT query and no OFFSET, so deep pages cost
+     * the same as the first one. The {@code after} token from the previous page carries the sort order;
+     * the sort parameters are only used for the first page.
+     */
     @Transactional(readOnly = true)
-    public List<ProductDTO> getBestsellers() {
-        return productRepository.findByBestsellerIsTrue(Pageable.unpaged()).getContent().stream()
+    public CursorPageDTO<ProductDTO> getProductsAfter(String after, String sortField, Sort.Direction direction, int size,
+                                                      String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type) {
+        ProductCursor cursor = after != null && !after.isBlank() ? ProductCursor.decode(after) : null;
+        ProductCursor.SortField field = cursor != null ? cursor.getField() : ProductCursor.SortField.fromParameter(sortField);
+        Sort.Direction order = cursor != null ? cursor.getDirection() : direction;
+
+        Specification<Product> spec = keysetSpecification(cursor, search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type);
+        if (spec == null) {
+            return new CursorPageDTO<>(List.of(), null, false);
+        }
+
+        // One extra row tells us whether another page exists
+        List<Product> rows = productRepository.findAllLimited(spec, ProductCursor.sort(field, order), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<Product> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = hasNext ? ProductCursor.after(pageRows.get(pageRows.size() - 1), field, order).encode() : null;
+        List<ProductDTO> content = pageRows.stream()
                 .map(productMapper::toDTO)
                 .collect(Collectors.toList());
+        return new CursorPageDTO<>(content, nextCursor, hasNext);
     }
 
     @Transactional(readOnly = true)
-    public List<ProductDTO> getNewArrivals() {
-        return productRepository.findByNewArrivalIsTrue(Pageable.unpaged()).getContent().stream()
-                .map(productMapper::toDTO)
+    public CursorPageDTO<ProductListDTO> getProductCardsAfter(String after, String sortField, Sort.Direction direction, int size,
+                                                              String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type) {
+        ProductCursor cursor = after != null && !after.isBlank() ? ProductCursor.decode(after) : null;
+        ProductCursor.SortField field = cursor != null ? cursor.getField() : ProductCursor.SortField.fromParameter(sortField);
+        Sort.Direction order = cursor != null ? cursor.getDirection() : direction;
+
+        Specification<Product> spec = keysetSpecification(cursor, search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type);
+        if (spec == null) {
+            return new CursorPageDTO<>(List.of(), null, false);
+        }
+
+        List<ProductListDTO> rows = productRepository.findListingLimited(spec, ProductCursor.sort(field, order), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ProductListDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? ProductCursor.after(content.get(content.size() - 1), field, order).encode() : null;
+        return new CursorPageDTO<>(content, nextCursor, hasNext);
+    }
+
+    /**
+     * Sidebar counts for the listing filters, computed from the in-memory facet index without touching the database.
+     */
+    public ProductFacetsDTO getProductFacets(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type) {
+        return productFacetIndex.facets(resolveSearch(search), categoryId, minPrice, maxPrice, brand, bestseller, newArrival, type);
+    }
+
+    // Returns null when there is no search term, otherwise the ranked matches (possibly none)
+    private List<Long> resolveSearch(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+        return productSearchIndex.search(search);
+    }
+
+    // Returns null when a search term matches nothing, so there is nothing to query
+    private Specification<Product> keysetSpecification(ProductCursor cursor, String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, String type) {
+        List<Long> searchIds = resolveSearch(search);
+        if (searchIds != null && searchIds.isEmpty()) {
+            return null;
+        }
+        Specification<Product> spec = productSpecification.getProducts(searchIds, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, type);
+        return cursor != null ? spec.and(cursor.toSpecification()) : spec;
+    }
+
+    // The hit list is capped, so ranking the filtered matches in memory stays cheap; only the page is mapped
+    private <T, R> Page<R> pageByRelevance(List<T> matches, Function<T, Long> idOf, List<Long> rankedIds, Pageable pageable, Function<T, R> mapper) {
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+        List<T> ordered = new ArrayList<>(matches);
+        ordered.sort(Comparator.comparing((T match) -> rank.get(idOf.apply(match))));
+
+        int from = (int) Math.min(pageable.getOffset(), ordered.size());
+        int to = Math.min(from + pageable.getPageSize(), ordered.size());
+        List<R> content = ordered.subList(from, to).stream()
+                .map(mapper)
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ordered.size());
+    }
+
+    public List<String> getProductSuggestions(String query, Integer limit) {
+        return productSuggestionIndex.suggest(query, limit != null ? limit : productSuggestionIndex.getMaxResults());
+    }
+
+    public List<ProductDTO> getBestsellers() {
+        return cached(productListCache, BESTSELLERS, () ->
+                productRepository.findByBestsellerIsTrue(Pageable.unpaged()).getContent().stream()
+                        .map(productMapper::toDTO)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    public List<ProductDTO> getNewArrivals() {
+        return cached(productListCache, NEW_ARRIVALS, () ->
+                productRepository.findByNewArrivalIsTrue(Pageable.unpaged()).getContent().stream()
+                        .map(productMapper::toDTO)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    public List<ProductListDTO> getBestsellerCards() {
+        return cached(productCardListCache, BESTSELLERS, () -> List.copyOf(productRepository.findListing(
+                productSpecification.getProducts(null, null, null, null, true, null, null, null), Pageable.unpaged()).getContent()));
+    }
+
+    public List<ProductListDTO> getNewArrivalCards() {
+        return cached(productCardListCache, NEW_ARRIVALS, () -> List.copyOf(productRepository.findListing(
+                productSpecification.getProducts(null, null, null, null, null, true, null, null), Pageable.unpaged()).getContent()));
     }
 
-    @Transactional(readOnly = true)
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        return productMapper.toDTO(product);
+        return cached(productCache, id, () -> {
+            Product product = productRepository.findDetailById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+            return productMapper.toDTO(product);
+        });
     }
 
     public void deleteProduct(Long id) {
@@ -281,12 +499,51 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangedEvent.Type.DELETED, id));
     }
 
-    @Transactional(readOnly = true)
     public List<ProductDTO> getPackableProducts() {
-        return productRepository.findByIsPackableTrue().stream()
-                .map(productMapper::toDTO)
-                .collect(Collectors.toList());
+        return cached(productListCache, PACKABLE, () ->
+                productRepository.findByIsPackableTrue().stream()
+                        .map(productMapper::toDTO)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    public List<CacheStatsDTO> getCacheStatistics() {
+        return List.of(productCache.stats(), productListCache.stats(), productCardListCache.stats(), variantIndexCache.stats());
+    }
+
+    /**
+     * Drops cached DTOs once the change that triggered the event is committed.
+     * Stock changes and deletions only touch the affected entries; creations and updates
+     * may move a product in or out of the bestseller/new-arrival/packable lists, so all lists are dropped.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        event.getProductIds().forEach(productCache::invalidate);
+        event.getProductIds().forEach(variantIndexCache::invalidate);
+
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                productListCache.invalidateAll();
+                productCardListCache.invalidateAll();
+            }
+            case DELETED, STOCK_CHANGED -> {
+                productListCache.invalidateIf((key, products) ->
+                        products.stream().anyMatch(p -> event.getProductIds().contains(p.getId())));
+                productCardListCache.invalidateIf((key, products) ->
+                        products.stream().anyMatch(p -> event.getProductIds().contains(p.getId())));
+            }
+        }
+    }
+
+    // Cache hits must not check out a connection, so the transaction is only opened on a miss.
+    // Inside a caller's transaction the data may include uncommitted writes, so the cache is bypassed.
+    private <K, T> T cached(BoundedTtlCache<K, T> cache, K key, Supplier<T> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        return cache.get(key, () -> readOnlyTransaction.execute(status -> loader.get()));
     }
-}
\ No newline at end of file
+}
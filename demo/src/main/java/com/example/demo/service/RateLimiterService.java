@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.TokenBucket;
+import com.example.demo.config.RateLimitProperties;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets for the rate-limited routes, one per route and client key.
+ *
+ * Buckets that have filled up again are dropped every {@code rate-limit.eviction-interval-ms}, since a
+ * new bucket would behave the same, so memory follows the number of recently active clients rather than
+ * every address ever seen. If a route still reaches {@code rate-limit.max-clients-per-route}, further new
+ * clients share one overflow bucket until the next eviction.
+ */
+@Service
+@RequiredArgsConstructor
+public class RateLimiterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterService.class);
+    private static final String OVERFLOW_KEY = "*";
+
+    private final RateLimitProperties properties;
+
+    // Route name -> client key -> bucket
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, TokenBucket>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a token from the client's bucket for the route.
+     *
+     * @return 0 if the request may go ahead, otherwise how many nanoseconds until the client may retry
+     */
+    public long tryAcquire(String routeName, RateLimitProperties.Route route, String clientKey) {
+        ConcurrentHashMap<String, TokenBucket> routeBuckets = buckets.computeIfAbsent(routeName, name -> new ConcurrentHashMap<>());
+        long now = System.nanoTime();
+        TokenBucket bucket = routeBuckets.get(clientKey);
+        if (bucket == null) {
+            String key = routeBuckets.size() < properties.getMaxClientsPerRoute() ? clientKey : OVERFLOW_KEY;
+            bucket = routeBuckets.computeIfAbsent(key, k -> new TokenBucket(route.getCapacity(), route.getRefillPerMinute(), now));
+        }
+        return bucket.tryConsume(now);
+    }
+
+    // A bucket evicted while a request is using it only costs that client one extra request
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.forEach((routeName, routeBuckets) -> {
+            int before = routeBuckets.size();
+            routeBuckets.values().removeIf(bucket -> bucket.isFull(now));
+            if (before > 0) {
+                logger.debug("Rate limiter route {}: evicted {} idle buckets, {} left", routeName, before - routeBuckets.size(), routeBuckets.size());
+            }
+        });
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.DailySalesDTO;
+import com.example.demo.dto.SalesBreakdownDTO;
+import com.example.demo.model.*;
+import com.example.demo.repositories.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the daily sales rollups ({@link SalesRollup} per day, product and category, and
+ * {@link CouponDailyUsage} per coupon) and serves the sales reports from them.
+ *
+ * Orders are added in the transaction that creates them and taken out again in the one that cancels or
+ * deletes them, so the rollups always match the non-canceled orders without any GROUP BY over the orders
+ * table. {@link #startBackfill()} rebuilds everything from the orders in batches, e.g. after a data fix.
+ *
+ * While a rebuild runs, a cancel, un-cancel or deletion of an order the rebuild has not reached yet is
+ * left to the rebuild, which counts the order with its new status or no longer finds it. Both sides lock
+ * the order row, so each change is counted exactly once: either the batch already holds the order and the
+ * change applies its delta on top, or the change commits first and the batch reads the new status.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+    private static final long TOTAL_ID = 0L;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final CouponDailyUsageRepository couponDailyUsageRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService backfillExecutor;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    // Progress of the running rebuild: orders up to rebuiltUpTo are counted, those up to rebuildMaxId will be
+    private volatile long rebuiltUpTo;
+    private volatile long rebuildMaxId = Long.MAX_VALUE;
+
+    @Value("${analytics.rollup.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository,
+                              CouponDailyUsageRepository couponDailyUsageRepository,
+                              OrderRepository orderRepository,
+                              ProductRepository productRepository,
+                              CategoryRepository categoryRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.couponDailyUsageRepository = couponDailyUsageRepository;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-rollup-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a newly placed order. Must run in the transaction that saves it.
+     */
+    public void recordOrder(Order order) {
+        if (order.getStatus() != Order.OrderStatus.CANCELED) {
+            apply(List.of(order), 1);
+        }
+    }
+
+    /**
+     * Takes a permanently deleted order out of the rollups. Must run in the transaction that deletes it.
+     */
+    public void recordDeletion(Order order) {
+        if (order.getStatus() != Order.OrderStatus.CANCELED && !leftToBackfill(order)) {
+            apply(List.of(order), -1);
+        }
+    }
+
+    /**
+     * Takes a canceled order out of the rollups, or puts it back if it is un-canceled.
+     */
+    public void recordStatusChange(Order order, Order.OrderStatus previousStatus) {
+        boolean wasCounted = previousStatus != Order.OrderStatus.CANCELED;
+        boolean isCounted = order.getStatus() != Order.OrderStatus.CANCELED;
+        if (wasCounted == isCounted) {
+            return;
+        }
+        if (!leftToBackfill(order)) {
+            apply(List.of(order), isCounted ? 1 : -1);
+        }
+    }
+
+    public void clear() {
+        salesRollupRepository.deleteAllRollups();
+        couponDailyUsageRepository.deleteAllRollups();
+    }
+
+    /**
+     * Rebuilds all rollups from the orders table on a background thread.
+     * Reports are incomplete until it finishes; orders placed meanwhile are counted as usual.
+     */
+    public void startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("A sales rollup rebuild is already running");
+        }
+        rebuiltUpTo = 0;
+        rebuildMaxId = Long.MAX_VALUE;
+        backfillExecutor.execute(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                logger.error("Sales rollup rebuild failed", e);
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to) {
+        Map<LocalDate, SalesRollup> byDate = salesRollupRepository
+                .findByDimensionAndDimensionIdAndDateBetweenOrderByDateAsc(SalesRollup.Dimension.TOTAL, TOTAL_ID, from, to)
+                .stream()
+                .collect(Collectors.toMap(SalesRollup::getDate, Function.identity()));
+
+        // One entry per day, including days without sales, so charts don't need to fill gaps
+        List<DailySalesDTO> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            SalesRollup rollup = byDate.getOrDefault(date, new SalesRollup(SalesRollup.Dimension.TOTAL, TOTAL_ID, date));
+            BigDecimal net = rollup.getGross().subtract(rollup.getDiscount()).add(rollup.getShipping());
+            days.add(new DailySalesDTO(date, rollup.getOrders(), rollup.getUnits(),
+                    rollup.getGross(), rollup.getDiscount(), rollup.getShipping(), net));
+        }
+        return days;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SalesBreakdownDTO> getProductSales(LocalDate from, LocalDate to, int limit) {
+        List<Object[]> rows = salesRollupRepository.sumByDimension(SalesRollup.Dimension.PRODUCT, from, to, PageRequest.of(0, limit));
+        Map<Long, String> names = productRepository.findAllById(dimensionIds(rows)).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+        return toBreakdown(rows, names);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SalesBreakdownDTO> getCategorySales(LocalDate from, LocalDate to, int limit) {
+        List<Object[]> rows = salesRollupRepository.sumByDimension(SalesRollup.Dimension.CATEGORY, from, to, PageRequest.of(0, limit));
+        Map<Long, String> names = categoryRepository.findAllById(dimensionIds(rows)).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        return toBreakdown(rows, names);
+    }
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        Long maxId = transactionTemplate.execute(status -> {
+            clear();
+            return orderRepository.findMaxId();
+        });
+        if (maxId == null) {
+            logger.info("Sales rollups cleared, there are no orders to rebuild them from");
+            return;
+        }
+        rebuildMaxId = maxId;
+
+        long afterId = 0;
+        int processed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = orderRepository.findIdsForBackfill(afterId, maxId, PageRequest.of(0, backfillBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            long lastId = ids.get(ids.size() - 1);
+            transactionTemplate.executeWithoutResult(status -> {
+                // Locking read: sees the latest committed status and holds off status changes until this commits
+                orderRepository.lockByIdIn(ids);
+                List<Order> orders = orderRepository.findWithItemsByIdIn(ids).stream()
+                        .filter(order -> order.getStatus() != Order.OrderStatus.CANCELED)
+                        .collect(Collectors.toList());
+                apply(orders, 1);
+                // Still holding the locks, so a status change waiting on one of these orders sees it counted
+                rebuiltUpTo = lastId;
+            });
+            afterId = lastId;
+            processed += ids.size();
+        }
+        logger.info("Rebuilt sales rollups from {} orders in {} ms", processed, System.currentTimeMillis() - started);
+    }
+
+    // True if a running rebuild has yet to reach the order, which then counts it as it finds it, or not at all
+    // once it is deleted. Locks the order so the batch that covers it can't be in progress meanwhile.
+    private boolean leftToBackfill(Order order) {
+        if (!backfillRunning.get()) {
+            return false;
+        }
+        orderRepository.lockByIdIn(List.of(order.getId()));
+        return order.getId() > rebuiltUpTo && order.getId() <= rebuildMaxId;
+    }
+
+    // Adds (sign 1) or removes (sign -1) the orders' contribution to every rollup they touch
+    private void apply(Collection<Order> orders, int sign) {
+        Map<List<Object>, SalesRollup> rollups = new HashMap<>();
+        Map<List<Object>, CouponDailyUsage> couponUsages = new HashMap<>();
+        BigDecimal factor = BigDecimal.valueOf(sign);
+
+        for (Order order : orders) {
+            LocalDate date = order.getCreatedAt().toLocalDate();
+            BigDecimal discount = Objects.requireNonNullElse(order.getDiscountAmount(), BigDecimal.ZERO).multiply(factor);
+            BigDecimal shipping = Objects.requireNonNullElse(order.getShippingCost(), BigDecimal.ZERO).multiply(factor);
+            long units = 0;
+            BigDecimal gross = BigDecimal.ZERO;
+            // Identity set: the rollups' equals/hashCode change as they are updated
+            Set<SalesRollup> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            for (OrderItem item : order.getItems()) {
+                long quantity = (long) item.getQuantity() * sign;
+                BigDecimal lineTotal = item.getPrice().multiply(BigDecimal.valueOf(quantity));
+                units += quantity;
+                gross = gross.add(lineTotal);
+
+                Product product = item.getProduct();
+                for (SalesRollup rollup : List.of(
+                        rollup(rollups, SalesRollup.Dimension.PRODUCT, product.getId(), date),
+                        rollup(rollups, SalesRollup.Dimension.CATEGORY, product.getCategory().getId(), date))) {
+                    rollup.setUnits(rollup.getUnits() + quantity);
+                    rollup.setGross(rollup.getGross().add(lineTotal));
+                    touched.add(rollup);
+                }
+            }
+            // An order counts once per product and category, however many lines it has for them
+            touched.forEach(rollup -> rollup.setOrders(rollup.getOrders() + sign));
+
+            // Order-level figures come from the totals stored at checkout, once the order has them
+            if (order.getSubtotal() != null && order.getItemCount() != null) {
+                units = (long) order.getItemCount() * sign;
+                gross = order.getSubtotal().multiply(factor);
+            }
+
+            SalesRollup total = rollup(rollups, SalesRollup.Dimension.TOTAL, TOTAL_ID, date);
+            total.setOrders(total.getOrders() + sign);
+            total.setUnits(total.getUnits() + units);
+            total.setGross(total.getGross().add(gross));
+            total.setDiscount(total.getDiscount().add(discount));
+            total.setShipping(total.getShipping().add(shipping));
+
+            if (order.getCoupon() != null) {
+                CouponDailyUsage usage = couponUsages.computeIfAbsent(List.of(order.getCoupon().getId(), date), key -> {
+                    CouponDailyUsage created = new CouponDailyUsage();
+                    created.setCoupon(order.getCoupon());
+                    created.setDate(date);
+                    return created;
+                });
+                usage.setUsageCount(usage.getUsageCount() + sign);
+                usage.setUnits(usage.getUnits() + units);
+                usage.setGross(usage.getGross().add(gross));
+                usage.setDiscount(usage.getDiscount().add(discount));
+                usage.setShipping(usage.getShipping().add(shipping));
+            }
+        }
+
+        salesRollupRepository.increment(rollups.values());
+        couponDailyUsageRepository.increment(couponUsages.values());
+    }
+
+    private static SalesRollup rollup(Map<List<Object>, SalesRollup> rollups, SalesRollup.Dimension dimension, long dimensionId, LocalDate date) {
+        return rollups.computeIfAbsent(List.of(dimension, dimensionId, date), key -> new SalesRollup(dimension, dimensionId, date));
+    }
+
+    private static List<Long> dimensionIds(List<Object[]> rows) {
+        return rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+    }
+
+    // Rows are dimension id, orders, units, gross as returned by sumByDimension
+    private static List<SalesBreakdownDTO> toBreakdown(List<Object[]> rows, Map<Long, String> names) {
+        return rows.stream()
+                .map(row -> new SalesBreakdownDTO((Long) row[0], names.get((Long) row[0]),
+                        ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), (BigDecimal) row[3]))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.ResourceVersions;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.dto.StorefrontDTO;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.model.Setting;
+import com.example.demo.repositories.SettingRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the storefront bootstrap payload as bytes that are serialized and gzipped once.
+ *
+ * The snapshot records a stamp of what it was built from: the versions of the hero, announcement,
+ * countdown, settings and categories, plus a counter for the product cards. Once the stamp moves, or
+ * the snapshot is older than {@code storefront.max-age-ms}, one background thread rebuilds it while
+ * requests keep getting the current one, so readers never wait on a rebuild (except for the very first
+ * one). The stamp only sees changes made through this instance; the maximum age bounds how long changes
+ * made on other instances or in the database take to show up.
+ *
+ * Card edits count straight away. Stock changes, which come with every checkout, only count for products
+ * on the storefront and are batched every {@code storefront.stock-refresh-ms}.
+ */
+@Service
+public class StorefrontService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorefrontService.class);
+    private static final List<String> EMBEDDED_RESOURCES = List.of(ResourceVersions.HERO, ResourceVersions.ANNOUNCEMENT,
+            ResourceVersions.COUNTDOWN, ResourceVersions.SETTINGS, ResourceVersions.CATEGORIES);
+
+    private final HeroService heroService;
+    private final AnnouncementService announcementService;
+    private final CountdownService countdownService;
+    private final SettingRepository settingRepository;
+    private final CategoryService categoryService;
+    private final ProductService productService;
+    private final ResourceVersions resourceVersions;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService rebuildExecutor;
+
+    @Value("${storefront.max-age-ms:60000}")
+    private long maxAgeMillis;
+
+    private final AtomicLong productVersion = new AtomicLong();
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public StorefrontService(HeroService heroService, AnnouncementService announcementService,
+                             CountdownService countdownService, SettingRepository settingRepository,
+                             CategoryService categoryService, ProductService productService,
+                             ResourceVersions resourceVersions, ObjectMapper objectMapper) {
+        this.heroService = heroService;
+        this.announcementService = announcementService;
+        this.countdownService = countdownService;
+        this.settingRepository = settingRepository;
+        this.categoryService = categoryService;
+        this.productService = productService;
+        this.resourceVersions = resourceVersions;
+        this.objectMapper = objectMapper;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storefront-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return buildFirst();
+        }
+        boolean stale = current.stamp != stamp() || System.currentTimeMillis() - current.builtAt > maxAgeMillis;
+        if (stale && rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+        return current;
+    }
+
+    // Runs after ProductService's listener, so the card caches are already invalidated
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.STOCK_CHANGED) {
+            productVersion.incrementAndGet();
+            return;
+        }
+        Snapshot current = snapshot;
+        if (current != null && event.getProductIds().stream().anyMatch(current.productIds::contains)) {
+            stockChanged.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storefront.stock-refresh-ms:30000}")
+    public void publishStockChanges() {
+        if (stockChanged.getAndSet(false)) {
+            productVersion.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private synchronized Snapshot buildFirst() {
+        if (snapshot == null) {
+            snapshot = build(stamp());
+        }
+        return snapshot;
+    }
+
+    private void rebuild() {
+        try {
+            // Take the stamp before loading, so a change during the build leaves the result stale rather than lost
+            snapshot = build(stamp());
+        } catch (RuntimeException e) {
+            logger.error("Storefront snapshot rebuild failed; still serving the previous one", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // Versions only ever grow, so the sum moves whenever any of them does
+    private long stamp() {
+        long stamp = productVersion.get();
+        for (String resource : EMBEDDED_RESOURCES) {
+            stamp += resourceVersions.version(resource);
+        }
+        return stamp;
+    }
+
+    private Snapshot build(long stamp) {
+        long builtAt = System.currentTimeMillis();
+        Map<String, String> settings = settingRepository.findAll().stream()
+                .collect(Collectors.toMap(Setting::getSettingKey, Setting::getValue));
+        List<ProductListDTO> bestsellers = productService.getBestsellerCards();
+        List<ProductListDTO> newArrivals = productService.getNewArrivalCards();
+        StorefrontDTO storefront = new StorefrontDTO(
+                heroService.getHero(),
+                announcementService.getAnnouncement(),
+                countdownService.getCountdown(),
+                settings,
+                categoryService.getAllCategories(),
+                bestsellers,
+                newArrivals);
+        Set<Long> productIds = Stream.concat(bestsellers.stream(), newArrivals.stream())
+                .map(ProductListDTO::getId)
+                .collect(Collectors.toUnmodifiableSet());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(storefront);
+            String hash = DigestUtils.md5DigestAsHex(json);
+            return new Snapshot(stamp, builtAt, productIds, json, gzip(json), "\"storefront-" + hash + "\"", "\"storefront-" + hash + "-gzip\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the storefront snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Getter
+    public static final class Snapshot {
+        private final long stamp;
+        private final long builtAt;
+        private final Set<Long> productIds;
+        private final byte[] json;
+        private final byte[] gzipped;
+        private final String etag;
+        private final String gzipEtag;
+
+        private Snapshot(long stamp, long builtAt, Set<Long> productIds, byte[] json, byte[] gzipped, String etag, String gzipEtag) {
+            this.stamp = stamp;
+            this.builtAt = builtAt;
+            this.productIds = productIds;
+            this.json = json;
+            this.gzipped = gzipped;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BloomFilter;
+import com.example.demo.model.RevokedToken;
+import com.example.demo.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked tokens, checked on every authenticated request without touching the database.
+ *
+ * Single tokens are revoked by id ({@code jti}): a Bloom filter answers "not revoked" for almost every
+ * token after a few bit probes, and only its rare matches are confirmed against the exact set.
+ * A user can also be revoked as a whole (role change, deletion, password reset), which rejects every
+ * token issued to them up to that moment.
+ *
+ * Entries are persisted to {@code revoked_tokens}, loaded at startup, picked up from other instances
+ * every {@code jwt.denylist.sync-interval-ms}, and dropped once the tokens they cover have expired.
+ */
+@Service
+public class TokenDenylistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylistService.class);
+    private static final String USER_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Token id -> expiry in epoch millis
+    private final ConcurrentHashMap<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+    // User id -> epoch second up to which the user's tokens are revoked
+    private final ConcurrentHashMap<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+    private volatile BloomFilter tokenFilter;
+    private volatile LocalDateTime lastSync;
+
+    @Value("${jwt.denylist.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${jwt.denylist.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Longest lifetime of any token, which is how long a user-wide revocation has to be kept
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    public TokenDenylistService(RevokedTokenRepository revokedTokenRepository, PlatformTransactionManager transactionManager) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void load() {
+        tokenFilter = BloomFilter.create(expectedEntries, falsePositiveRate);
+        lastSync = LocalDateTime.now();
+        List<RevokedToken> entries = transactionTemplate.execute(status -> revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now()));
+        entries.forEach(this::remember);
+        logger.info("Loaded {} token revocations", entries.size());
+    }
+
+    /**
+     * @param tokenId  the token's {@code jti}; null for tokens issued before ids existed
+     * @param issuedAt the token's {@code iat}
+     */
+    public boolean isRevoked(String tokenId, Long userId, Date issuedAt) {
+        if (tokenId != null && tokenFilter.mightContain(tokenId) && revokedTokenIds.containsKey(tokenId)) {
+            return true;
+        }
+        if (userId != null && issuedAt != null) {
+            Long revokedUpTo = revokedUsers.get(userId);
+            // iat only has second precision, so a token from the same second as the revocation is revoked too
+            return revokedUpTo != null && issuedAt.getTime() / 1000 <= revokedUpTo;
+        }
+        return false;
+    }
+
+    public void revokeToken(String tokenId, Date expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(tokenId, RevokedToken.Type.TOKEN, LocalDateTime.now(), expiry));
+        rememberToken(tokenId, expiresAt.getTime());
+    }
+
+    /**
+     * Revokes a token unless it is revoked already, atomically across instances: of several concurrent
+     * calls for the same id, only one returns true. Used for tokens that may be used only once.
+     */
+    public boolean claimToken(String tokenId, Date expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        boolean claimed;
+        try {
+            transactionTemplate.executeWithoutResult(status -> revokedTokenRepository.insertToken(tokenId, LocalDateTime.now(), expiry));
+            claimed = true;
+        } catch (DataIntegrityViolationException e) {
+            claimed = false;
+        }
+        rememberToken(tokenId, expiresAt.getTime());
+        return claimed;
+    }
+
+    /**
+     * Revokes every token issued to the user so far. They can log in again straight away.
+     */
+    public void revokeUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.save(new RevokedToken(USER_PREFIX + userId, RevokedToken.Type.USER, now,
+                now.plusNanos(refreshExpiration * 1_000_000L)));
+        revokedUsers.merge(userId, toEpochSecond(now), Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.sync-interval-ms:30000}", initialDelayString = "${jwt.denylist.sync-interval-ms:30000}")
+    public void syncFromDatabase() {
+        // Overlap a little so entries committed late by another instance aren't skipped; reading one twice is harmless
+        LocalDateTime since = lastSync.minusMinutes(1);
+        lastSync = LocalDateTime.now();
+        transactionTemplate.execute(status -> revokedTokenRepository.findByRevokedAtGreaterThanEqual(since))
+                .forEach(this::remember);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge-interval-ms:3600000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Integer removed = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt < now);
+        long oldestLiveToken = now / 1000 - refreshExpiration / 1000;
+        revokedUsers.values().removeIf(revokedUpTo -> revokedUpTo < oldestLiveToken);
+
+        // Bloom filters can't forget, so build a fresh one from what is left. Ids revoked while it is being
+        // built are added again after the swap, so none can be missed.
+        BloomFilter rebuilt = BloomFilter.create(expectedEntries, falsePositiveRate);
+        revokedTokenIds.keySet().forEach(rebuilt::add);
+        tokenFilter = rebuilt;
+        revokedTokenIds.keySet().forEach(rebuilt::add);
+        if (removed != null && removed > 0) {
+            logger.debug("Purged {} expired token revocations", removed);
+        }
+    }
+
+    private void remember(RevokedToken entry) {
+        if (entry.getType() == RevokedToken.Type.USER) {
+            Long userId = Long.valueOf(entry.getId().substring(USER_PREFIX.length()));
+            revokedUsers.merge(userId, toEpochSecond(entry.getRevokedAt()), Math::max);
+        } else {
+            rememberToken(entry.getId(), entry.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private void rememberToken(String tokenId, long expiresAtMillis) {
+        revokedTokenIds.put(tokenId, expiresAtMillis);
+        tokenFilter.add(tokenId);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
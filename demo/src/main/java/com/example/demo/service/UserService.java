@@ -1,14 +1,17 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.BoundedTtlCache;
 import com.example.demo.dto.ChangePasswordRequest;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.UserMapper;
+import com.example.demo.model.Order;
 import com.example.demo.model.User;
 import com.example.demo.repositories.CommentRepository;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.ReviewRepository;
 import com.example.demo.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,12 +34,33 @@ public class UserService {
     private final OrderRepository orderRepository;
     private final CommentRepository commentRepository;
     private final ReviewRepository reviewRepository;
+    private final TokenDenylistService tokenDenylistService;
+    private final SalesRollupService salesRollupService;
     // Removed RecaptchaService dependency as it's no longer used in this service for validation
     // private final RecaptchaService recaptchaService;
 
     @Value("${frontend.url}")
     private String frontendUrl;
 
+    @Value("${auth.principal-cache.enabled:true}")
+    private boolean principalCacheEnabled;
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    private int principalCacheMaxSize;
+
+    @Value("${auth.principal-cache.ttl-seconds:30}")
+    private long principalCacheTtlSeconds;
+
+    // Full users by id for the authenticated endpoints that need more than the token's claims.
+    // Short-lived, and evicted whenever this service changes a user.
+    private BoundedTtlCache<Long, User> principalCache;
+
+    @PostConstruct
+    void initCache() {
+        principalCache = new BoundedTtlCache<>("user-principals", principalCacheMaxSize, principalCacheTtlSeconds * 1000);
+    }
+
+    @Transactional
     public User registerUser(User user){
         // Removed reCAPTCHA validation from here as it's now handled at the controller layer (AuthController)
         // if (!recaptchaService.validateRecaptcha(user.getRecaptchaToken())) {
@@ -50,8 +74,9 @@ public class UserService {
         user.setRole(User.Role.USER);
         user.setConfirmationCode(generateConfirmationCode());
         user.setEmailConfirmation(false);
-        emailService.sendConfirmationCode(user);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        emailService.sendConfirmationCode(savedUser);
+        return savedUser;
     }
 
     public User getUserByEmail(String email){
@@ -66,6 +91,9 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        // The password may have changed because the account was compromised, so end every existing session
+        tokenDenylistService.revokeUser(user.getId());
+        principalCache.invalidate(user.getId());
     }
 
     public void confirmEmail(String email, String confirmationCode){
@@ -74,6 +102,7 @@ public class UserService {
             user.setEmailConfirmation(true);
             user.setConfirmationCode(null);
             userRepository.save(user);
+            principalCache.invalidate(user.getId());
         }
         else{
             throw new BadCredentialsException("Invalid confirmation code");
@@ -86,6 +115,16 @@ public class UserService {
         return String.valueOf(code);
     }
 
+    /**
+     * The full user behind an authenticated request's principal, which only carries id, email and role.
+     */
+    public User getCurrentUser(Long id) {
+        if (!principalCacheEnabled) {
+            return getUserById(id);
+        }
+        return principalCache.get(id, () -> getUserById(id));
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
@@ -101,25 +140,34 @@ public class UserService {
             throw new ResourceNotFoundException("User not found with id: " + id);
         }
         // Corrected method call from findByUserId to findByUser_Id
-        orderRepository.deleteAll(orderRepository.findByUser_Id(id));
+        List<Order> orders = orderRepository.findByUser_Id(id);
+        orders.forEach(salesRollupService::recordDeletion);
+        orderRepository.deleteAll(orders);
         commentRepository.deleteAll(commentRepository.findByUserId(id));
         reviewRepository.deleteAll(reviewRepository.findByUserId(id));
         userRepository.deleteById(id);
+        tokenDenylistService.revokeUser(id);
+        principalCache.invalidate(id);
     }
 
     public UserDTO updateUserRole(Long id, User.Role role) {
         User user = getUserById(id);
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        // Tokens carry the role, so the old ones have to go; the next refresh picks up the new role
+        tokenDenylistService.revokeUser(id);
+        principalCache.invalidate(id);
         return userMapper.toDTO(updatedUser);
     }
 
+    @Transactional
     public void forgotPassword(String email) {
         User user = getUserByEmail(email);
         String token = UUID.randomUUID().toString();
         user.setResetPasswordToken(token);
         user.setResetPasswordTokenExpiry(LocalDateTime.now().plusHours(1)); // Token is valid for 1 hour
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
         String resetLink = frontendUrl + "/reset-password/" + token;
         emailService.sendPasswordResetEmail(user, resetLink);
     }
@@ -136,5 +184,7 @@ public class UserService {
         user.setResetPasswordToken(null);
         user.setResetPasswordTokenExpiry(null);
         userRepository.save(user);
+        tokenDenylistService.revokeUser(user.getId());
+        principalCache.invalidate(user.getId());
     }
 }
\ No newline at end of file
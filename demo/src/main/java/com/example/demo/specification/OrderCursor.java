@@ -0,0 +1,115 @@
+package com.example.demo.specification;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position in the keyset-paginated admin order listing, encoded like {@link ProductCursor}.
+ * Sorting by creation date is served by the {@code (deleted, created_at)} and {@code (status, created_at)} indexes.
+ */
+@Getter
+public class OrderCursor {
+
+    public enum SortField {
+        CREATED_AT("createdAt"), ID("id");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public static SortField fromParameter(String value) {
+            String normalized = value.replace("_", "").toLowerCase(Locale.ROOT);
+            return switch (normalized) {
+                case "createdat" -> CREATED_AT;
+                case "id" -> ID;
+                default -> throw new BadRequestException("Unsupported sort field for order pagination: " + value);
+            };
+        }
+
+        Comparable<?> valueOf(Order order) {
+            return switch (this) {
+                case CREATED_AT -> order.getCreatedAt();
+                case ID -> order.getId();
+            };
+        }
+
+        Comparable<?> parse(String raw) {
+            return switch (this) {
+                case CREATED_AT -> LocalDateTime.parse(raw);
+                case ID -> Long.valueOf(raw);
+            };
+        }
+    }
+
+    private final SortField field;
+    private final Sort.Direction direction;
+    private final Comparable<?> value;
+    private final Long id;
+
+    private OrderCursor(SortField field, Sort.Direction direction, Comparable<?> value, Long id) {
+        this.field = field;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static OrderCursor after(Order last, SortField field, Sort.Direction direction) {
+        return new OrderCursor(field, direction, field.valueOf(last), last.getId());
+    }
+
+    public static Sort sort(SortField field, Sort.Direction direction) {
+        if (field == SortField.ID) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, field.property).and(Sort.by(direction, "id"));
+    }
+
+    public String encode() {
+        String raw = field.name() + "|" + direction.name() + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            SortField field = SortField.valueOf(parts[0]);
+            return new OrderCursor(field, Sort.Direction.valueOf(parts[1]), field.parse(parts[3]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid pagination cursor");
+        }
+    }
+
+    /**
+     * Restricts the listing to the orders that come after this cursor. Orders always have a creation date.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Specification<Order> toSpecification() {
+        return (root, query, cb) -> {
+            boolean ascending = direction.isAscending();
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (field == SortField.ID) {
+                return idAfter;
+            }
+            Path<Comparable> valuePath = root.get(field.property);
+            Comparable keyValue = value;
+            Predicate valueAfter = ascending
+                    ? cb.greaterThan(valuePath, keyValue)
+                    : cb.lessThan(valuePath, keyValue);
+            return cb.or(valueAfter, cb.and(cb.equal(valuePath, keyValue), idAfter));
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.specification;
+
+import com.example.demo.model.Order;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Component
+public class OrderSpecification {
+
+    /**
+     * Filters for the admin order listing. Only non-deleted orders are listed; every other filter is optional.
+     * The coupon is fetched along with the orders because the listing shows its code.
+     */
+    public Specification<Order> getAdminOrders(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, String city, String email, String couponCode) {
+        return (root, query, criteriaBuilder) -> {
+            if (query.getResultType() == Order.class) {
+                root.fetch("coupon", JoinType.LEFT);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(criteriaBuilder.isFalse(root.get("deleted")));
+
+            if (status != null) {
+                predicates.add(criteriaBuilder.equal(root.get("status"), status));
+            }
+
+            if (from != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), from));
+            }
+
+            if (to != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("createdAt"), to));
+            }
+
+            if (city != null && !city.isBlank()) {
+                predicates.add(criteriaBuilder.equal(criteriaBuilder.lower(root.get("city")), city.trim().toLowerCase(Locale.ROOT)));
+            }
+
+            if (email != null && !email.isBlank()) {
+                predicates.add(criteriaBuilder.equal(criteriaBuilder.lower(root.join("user").get("email")), email.trim().toLowerCase(Locale.ROOT)));
+            }
+
+            if (couponCode != null && !couponCode.isBlank()) {
+                predicates.add(criteriaBuilder.equal(root.join("coupon").get("code"), couponCode.trim()));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.specification;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.Product;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and id of the last product on a page.
+ * Clients only ever see it as an opaque, URL-safe token.
+ *
+ * The next page is "everything strictly after (value, id)" in the listing order, which the database
+ * answers with an index range scan instead of skipping OFFSET rows.
+ */
+@Getter
+public class ProductCursor {
+
+    public enum SortField {
+        ID("id"), NAME("name"), PRICE("price");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public static SortField fromParameter(String value) {
+            try {
+                return SortField.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported sort field for cursor pagination: " + value);
+            }
+        }
+
+        Comparable<?> valueOf(Product product) {
+            return switch (this) {
+                case ID -> product.getId();
+                case NAME -> product.getName();
+                case PRICE -> product.getPrice();
+            };
+        }
+
+        Comparable<?> valueOf(ProductListDTO product) {
+            return switch (this) {
+                case ID -> product.getId();
+                case NAME -> product.getName();
+                case PRICE -> product.getPrice();
+            };
+        }
+
+        Comparable<?> parse(String raw) {
+            return switch (this) {
+                case ID -> Long.valueOf(raw);
+                case NAME -> raw;
+                case PRICE -> new BigDecimal(raw);
+            };
+        }
+    }
+
+    private final SortField field;
+    private final Sort.Direction direction;
+    private final Comparable<?> value;
+    private final Long id;
+
+    private ProductCursor(SortField field, Sort.Direction direction, Comparable<?> value, Long id) {
+        this.field = field;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ProductCursor after(Product last, SortField field, Sort.Direction direction) {
+        return new ProductCursor(field, direction, field.valueOf(last), last.getId());
+    }
+
+    public static ProductCursor after(ProductListDTO last, SortField field, Sort.Direction direction) {
+        return new ProductCursor(field, direction, field.valueOf(last), last.getId());
+    }
+
+    public static Sort sort(SortField field, Sort.Direction direction) {
+        if (field == SortField.ID) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, field.property).and(Sort.by(direction, "id"));
+    }
+
+    public String encode() {
+        String raw = field.name() + "|" + direction.name() + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            SortField field = SortField.valueOf(parts[0]);
+            return new ProductCursor(field, Sort.Direction.valueOf(parts[1]), field.parse(parts[3]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid pagination cursor");
+        }
+    }
+
+    /**
+     * Restricts a listing to the rows that come after this cursor.
+     * Sort keys are assumed non-null, which product validation guarantees for name and price.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Specification<Product> toSpecification() {
+        return (root, query, cb) -> {
+            boolean ascending = direction.isAscending();
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (field == SortField.ID) {
+                return idAfter;
+            }
+            Path<Comparable> valuePath = root.get(field.property);
+            Comparable keyValue = value;
+            Predicate valueAfter = ascending
+                    ? cb.greaterThan(valuePath, keyValue)
+                    : cb.lessThan(valuePath, keyValue);
+            return cb.or(valueAfter, cb.and(cb.equal(valuePath, keyValue), idAfter));
+        };
+    }
+}
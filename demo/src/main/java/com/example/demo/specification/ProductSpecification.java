@@ -9,24 +9,22 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Component
 public class ProductSpecification {
 
-    public Specification<Product> getProducts(String search, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId, String type) {
+    /**
+     * Builds the listing filters. Free-text search is resolved by {@code ProductSearchIndex} beforehand,
+     * so it only arrives here as the set of matching product ids ({@code null} means no restriction).
+     */
+    public Specification<Product> getProducts(Collection<Long> productIds, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId, String type) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (search != null && !search.isEmpty()) {
-                String searchTerm = "%" + search.toLowerCase() + "%";
-                // Temporarily searching only by name to diagnose the issue
-                Predicate nameLike = criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), searchTerm);
-                predicates.add(nameLike);
-
-                // The original code that searched both name and description is commented out below for testing.
-                // Predicate descriptionLike = criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), searchTerm);
-                // predicates.add(criteriaBuilder.or(nameLike, descriptionLike));
+            if (productIds != null) {
+                predicates.add(root.get("id").in(productIds));
             }
 
             if (minPrice != null) {
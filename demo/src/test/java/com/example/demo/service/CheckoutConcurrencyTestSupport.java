@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Category;
+import com.example.demo.model.Order;
+import com.example.demo.model.Product;
+import com.example.demo.model.SalesRollup;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.OrderRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.SalesRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Fixture for tests that race real checkouts against each other. Not @Transactional: every checkout has
+ * to commit on its own thread for the updates to actually race, so everything a test creates is removed
+ * again afterwards, including the orders' contribution to the sales rollups.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+abstract class CheckoutConcurrencyTestSupport {
+
+    @Autowired
+    protected OrderService orderService;
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    @Autowired
+    protected OrderRepository orderRepository;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    protected final String runId = Long.toString(System.nanoTime());
+    protected final Queue<Long> createdOrderIds = new ConcurrentLinkedQueue<>();
+    private final List<Long> createdProductIds = new ArrayList<>();
+    protected Category category;
+
+    @BeforeEach
+    void createCategory() {
+        category = new Category();
+        category.setName(getClass().getSimpleName() + " " + runId);
+        category.setDescription("Test Description");
+        category = categoryRepository.save(category);
+    }
+
+    @AfterEach
+    void removeFixtures() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!createdOrderIds.isEmpty()) {
+                List<Order> orders = orderRepository.findWithItemsByIdIn(List.copyOf(createdOrderIds));
+                orders.forEach(salesRollupService::recordDeletion);
+                orderRepository.deleteAll(orders);
+            }
+            salesRollupRepository.deleteByDimensionAndDimensionIdIn(SalesRollup.Dimension.PRODUCT, createdProductIds);
+            salesRollupRepository.deleteByDimensionAndDimensionIdIn(SalesRollup.Dimension.CATEGORY, List.of(category.getId()));
+        });
+        removeTestData();
+        createdProductIds.forEach(productRepository::deleteById);
+        categoryRepository.deleteById(category.getId());
+    }
+
+    /**
+     * Deletes whatever the test created besides orders, products and the category, e.g. users and coupons.
+     * Runs after the orders are gone.
+     */
+    protected void removeTestData() {
+    }
+
+    protected Product createProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setName(name + " " + runId);
+        product.setDescription("Test product description");
+        product.setPrice(new BigDecimal("19.99"));
+        product.setQuantity(quantity);
+        product.setBrand("Test Brand");
+        product.setType(Product.ProductType.BOTH);
+        product.setCategory(category);
+        product = productRepository.save(product);
+        createdProductIds.add(product.getId());
+        return product;
+    }
+
+    /**
+     * Starts all tasks at once on a pool of 16 threads and waits for them. Exceptions thrown by a task,
+     * including failed assertions, fail the test.
+     */
+    protected void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
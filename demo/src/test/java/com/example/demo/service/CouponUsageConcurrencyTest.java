@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.model.Coupon;
+import com.example.demo.model.Product;
+import com.example.demo.model.User;
+import com.example.demo.repositories.CouponRepository;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redeems one limited coupon from many concurrent checkouts.
+ */
+public class CouponUsageConcurrencyTest extends CheckoutConcurrencyTestSupport {
+
+    private static final int USAGE_LIMIT = 5;
+    private static final int BUYERS = 30;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> buyers = new ArrayList<>();
+    private Product product;
+    private Coupon coupon;
+
+    @BeforeEach
+    void setUp() {
+        product = createProduct("Coupon Test Product", STOCK);
+
+        coupon = new Coupon();
+        coupon.setName("Flash sale");
+        coupon.setCode("FLASH-" + runId);
+        coupon.setDiscountType(Coupon.DiscountType.PERCENTAGE);
+        coupon.setDiscountValue(new BigDecimal("10"));
+        coupon.setExpiryDate(LocalDateTime.now().plusDays(1));
+        coupon.setType(Coupon.CouponType.INFLUENCER);
+        coupon.setUsageLimit(USAGE_LIMIT);
+        coupon.setTimesUsed(0);
+        coupon = couponRepository.save(coupon);
+
+        for (int i = 0; i < BUYERS; i++) {
+            User user = new User();
+            user.setFullName("Buyer " + i);
+            user.setEmail("coupon-test-" + runId + "-" + i + "@example.com");
+            user.setRole(User.Role.USER);
+            user.setEmailConfirmation(true);
+            user = userRepository.save(user);
+            cartService.addToCart(user.getId(), product.getId(), 1);
+            buyers.add(user);
+        }
+    }
+
+    @Override
+    protected void removeTestData() {
+        buyers.forEach(user -> userRepository.deleteById(user.getId()));
+        couponService.deleteCoupon(coupon.getId());
+    }
+
+    @Test
+    void concurrentCheckoutsNeverExceedUsageLimit() throws Exception {
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Callable<Void>> checkouts = new ArrayList<>();
+        for (User buyer : buyers) {
+            checkouts.add(() -> {
+                try {
+                    OrderDTO order = checkout(buyer);
+                    createdOrderIds.add(order.getId());
+                    redeemed.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    assertEquals("Coupon has reached its usage limit.", e.getMessage());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runConcurrently(checkouts);
+
+        assertEquals(USAGE_LIMIT, redeemed.get(), "Exactly the usage limit must be redeemed");
+        assertEquals(BUYERS - USAGE_LIMIT, rejected.get());
+        assertEquals(USAGE_LIMIT, couponRepository.findById(coupon.getId()).orElseThrow().getTimesUsed());
+        assertEquals(STOCK - USAGE_LIMIT, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void rejectedCouponRollsBackTheOrder() {
+        coupon.setTimesUsed(USAGE_LIMIT);
+        couponRepository.save(coupon);
+
+        assertThrows(IllegalStateException.class, () -> checkout(buyers.get(0)));
+
+        assertEquals(USAGE_LIMIT, couponRepository.findById(coupon.getId()).orElseThrow().getTimesUsed());
+        assertEquals(STOCK, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+        assertFalse(orderRepository.existsByUser_Id(buyers.get(0).getId()));
+    }
+
+    private OrderDTO checkout(User buyer) {
+        return orderService.createOrder(buyer.getId(), "1 Test Street", "0600000000", buyer.getFullName(),
+                "Casablanca", coupon.getCode());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JwtAuthenticationFilter;
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards that tokens carrying the id and role claims are authenticated by JwtAuthenticationFilter
+ * without any SQL, while legacy tokens, which only carry the email, still fall back to a user lookup.
+ *
+ * The tests tagged "benchmark" time both paths over many requests; they only run with {@code -Pbenchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class JwtAuthenticationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationBenchmarkTest.class);
+    private static final int REQUESTS = 100;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        user = new User();
+        user.setFullName("Benchmark User");
+        user.setEmail("jwt-benchmark-" + System.nanoTime() + "@example.com");
+        user.setRole(User.Role.ADMIN);
+        user.setEmailConfirmation(true);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void tokenWithClaimsIsAuthenticatedWithoutQueries() throws Exception {
+        String token = jwtService.generateToken(user);
+
+        Authentication authentication = authenticate(token);
+        assertNotNull(authentication);
+        User principal = (User) authentication.getPrincipal();
+        assertEquals(user.getId(), principal.getId());
+        assertEquals(user.getEmail(), principal.getUsername());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertNotNull(authenticate(token));
+        }
+        assertEquals(0, statistics.getPrepareStatementCount(), "Authenticating a token must not query the database");
+    }
+
+    @Test
+    void legacyTokenFallsBackToUserLookup() throws Exception {
+        String token = legacyToken();
+
+        statistics.clear();
+        Authentication authentication = authenticate(token);
+        assertNotNull(authentication);
+        assertEquals(user.getId(), ((User) authentication.getPrincipal()).getId());
+        assertTrue(statistics.getPrepareStatementCount() >= 1);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkTokenWithClaims() throws Exception {
+        String token = jwtService.generateToken(user);
+        long nanosPerRequest = measure(token);
+        logger.info("JWT auth with claims: {} ns/request, {} statements over {} requests",
+                nanosPerRequest, statistics.getPrepareStatementCount(), ITERATIONS);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkLegacyToken() throws Exception {
+        long nanosPerRequest = measure(legacyToken());
+        logger.info("JWT auth with user lookup: {} ns/request, {} statements over {} requests",
+                nanosPerRequest, statistics.getPrepareStatementCount(), ITERATIONS);
+    }
+
+    @Test
+    void invalidTokenLeavesRequestUnauthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(authenticate(tampered));
+        assertNull(authenticate("not-a-token"));
+    }
+
+    // Only carries the email, like tokens issued before the id and role claims existed
+    private String legacyToken() {
+        return Jwts.builder()
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+    }
+
+    private long measure(String token) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            authenticate(token);
+        }
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            authenticate(token);
+        }
+        return (System.nanoTime() - started) / ITERATIONS;
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductVariantDto;
+import com.example.demo.dto.VariantTypeDto;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the fetch plans in ProductRepository: the number of SQL statements needed to map products
+ * to DTOs must not grow with the number of products on the page.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ProductQueryCountTest {
+
+    private static final int PRODUCT_COUNT = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Category testCategory;
+    private Long firstProductId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        testCategory = new Category();
+        testCategory.setName("Query Count Category " + System.nanoTime());
+        testCategory.setDescription("Test Description");
+        testCategory = categoryRepository.save(testCategory);
+
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            ProductDTO created = productService.createProductWithImages(createProductDTO("Query Count Product " + i), null);
+            Product product = productRepository.findById(created.getId()).orElseThrow();
+            product.getImages().addAll(List.of("https://example.com/" + i + "-1.jpg", "https://example.com/" + i + "-2.jpg"));
+            productRepository.save(product);
+            if (firstProductId == null) {
+                firstProductId = created.getId();
+            }
+        }
+
+        // Start every measurement from an empty persistence context so nothing is served from it
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void listingStatementCountDoesNotDependOnPageSize() {
+        long smallPage = countStatements(() -> listPage(5));
+        long fullPage = countStatements(() -> listPage(PRODUCT_COUNT));
+
+        assertEquals(smallPage, fullPage, "Listing fires extra statements per product");
+        assertTrue(fullPage <= 10, "Listing a page of " + PRODUCT_COUNT + " products took " + fullPage + " statements");
+    }
+
+    @Test
+    void productDetailUsesConstantNumberOfStatements() {
+        long statements = countStatements(() -> {
+            ProductDTO product = productService.getProductById(firstProductId);
+            assertEquals(2, product.getImages().size());
+            assertEquals(2, product.getVariantTypes().size());
+            assertEquals(4, product.getVariants().size());
+        });
+
+        assertTrue(statements <= 8, "Product detail took " + statements + " statements");
+    }
+
+    private void listPage(int size) {
+        Page<ProductDTO> page = productService.getAllProducts(null, testCategory.getId(), null, null, null, null, null, null, PageRequest.of(0, size));
+        assertEquals(size, page.getContent().size());
+        page.getContent().forEach(product -> assertEquals(4, product.getVariants().size()));
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private ProductDTO createProductDTO(String name) {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setName(name);
+        productDTO.setDescription("Test product description");
+        productDTO.setPrice(new BigDecimal("29.99"));
+        productDTO.setQuantity(50);
+        productDTO.setBrand("Test Brand");
+        productDTO.setCategoryId(testCategory.getId());
+        productDTO.setType(Product.ProductType.BOTH);
+        productDTO.setHasVariants(true);
+
+        VariantTypeDto size = new VariantTypeDto();
+        size.setName("Size");
+        size.setOptions(List.of("S", "M"));
+        VariantTypeDto color = new VariantTypeDto();
+        color.setName("Color");
+        color.setOptions(List.of("Red", "Blue"));
+        productDTO.setVariantTypes(List.of(size, color));
+
+        List<ProductVariantDto> variants = new ArrayList<>();
+        for (String s : size.getOptions()) {
+            for (String c : color.getOptions()) {
+                ProductVariantDto variant = new ProductVariantDto();
+                variant.setVariantMap(Map.of("Size", s, "Color", c));
+                variant.setPrice(new BigDecimal("29.99"));
+                variant.setStock(10);
+                variants.add(variant);
+            }
+        }
+        productDTO.setVariants(variants);
+        return productDTO;
+    }
+}
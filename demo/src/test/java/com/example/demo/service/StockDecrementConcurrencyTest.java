@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CartItemDTO;
+import com.example.demo.dto.GuestOrderRequestDTO;
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers one product with concurrent guest checkouts.
+ */
+public class StockDecrementConcurrencyTest extends CheckoutConcurrencyTestSupport {
+
+    private static final int STOCK = 10;
+    private static final int BUYERS = 40;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Queue<String> guestEmails = new ConcurrentLinkedQueue<>();
+    private Product hotProduct;
+    private Product otherProduct;
+
+    @BeforeEach
+    void setUp() {
+        hotProduct = createProduct("Hot Product", STOCK);
+        otherProduct = createProduct("Other Product", STOCK);
+    }
+
+    @Override
+    protected void removeTestData() {
+        guestEmails.forEach(email -> userRepository.findByEmail(email).ifPresent(userRepository::delete));
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Callable<Void>> checkouts = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            GuestOrderRequestDTO request = guestOrder(i, line(hotProduct, 1));
+            checkouts.add(() -> {
+                try {
+                    OrderDTO order = orderService.createGuestOrder(request);
+                    createdOrderIds.add(order.getId());
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runConcurrently(checkouts);
+
+        assertEquals(STOCK, sold.get(), "Exactly the available stock must be sold");
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(hotProduct.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void failedLineRollsBackTheWholeOrder() {
+        GuestOrderRequestDTO request = guestOrder(0, line(otherProduct, 3), line(hotProduct, STOCK + 1));
+
+        assertThrows(InsufficientStockException.class, () -> orderService.createGuestOrder(request));
+
+        assertEquals(STOCK, productRepository.findById(otherProduct.getId()).orElseThrow().getQuantity());
+        assertEquals(STOCK, productRepository.findById(hotProduct.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void repeatedLinesForOneProductAreCheckedTogether() {
+        GuestOrderRequestDTO request = guestOrder(0, line(hotProduct, STOCK - 2), line(hotProduct, 3));
+
+        assertThrows(InsufficientStockException.class, () -> orderService.createGuestOrder(request));
+        assertEquals(STOCK, productRepository.findById(hotProduct.getId()).orElseThrow().getQuantity());
+    }
+
+    private GuestOrderRequestDTO guestOrder(int buyer, CartItemDTO... lines) {
+        String email = "stock-test-" + runId + "-" + buyer + "@example.com";
+        guestEmails.add(email);
+
+        GuestOrderRequestDTO request = new GuestOrderRequestDTO();
+        request.setClientFullName("Buyer " + buyer);
+        request.setCity("Casablanca");
+        request.setAddress("1 Test Street");
+        request.setPhoneNumber("0600000000");
+        request.setEmail(email);
+        request.setCartItems(List.of(lines));
+        return request;
+    }
+
+    private CartItemDTO line(Product product, int quantity) {
+        CartItemDTO item = new CartItemDTO();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        return item;
+    }
+}
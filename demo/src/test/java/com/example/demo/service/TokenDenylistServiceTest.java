@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JwtAuthenticationFilter;
+import com.example.demo.model.User;
+import com.example.demo.repositories.RevokedTokenRepository;
+import com.example.demo.repositories.UserRepository;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Revocation of single tokens and whole users, refresh token rotation and reuse detection, checked
+ * through JwtAuthenticationFilter and JwtService. The revoked_tokens rows the tests create are deleted again.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TokenDenylistServiceTest {
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenDenylistService tokenDenylistService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private User user;
+    // Ids of the revoked_tokens rows a test may have written
+    private final List<String> revocationIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setFullName("Denylist User");
+        user.setEmail("jwt-denylist-" + System.nanoTime() + "@example.com");
+        user.setRole(User.Role.USER);
+        user.setEmailConfirmation(true);
+        user = userRepository.save(user);
+        revocationIds.add("user:" + user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        revokedTokenRepository.deleteAllById(revocationIds);
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenCached() throws Exception {
+        String token = accessToken();
+        assertNotNull(authenticate(token));
+        assertNotNull(authenticate(token));
+
+        jwtService.revoke(token);
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void refreshTokenIsNotAcceptedAsAccessToken() throws Exception {
+        assertNull(authenticate(refreshToken()));
+    }
+
+    @Test
+    void revokingUserRejectsTheirExistingTokens() throws Exception {
+        String token = accessToken();
+        String refreshToken = refreshToken();
+        assertNotNull(authenticate(token));
+
+        tokenDenylistService.revokeUser(user.getId());
+
+        assertNull(authenticate(token));
+        assertNull(jwtService.redeemRefreshToken(refreshToken));
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesTheUser() throws Exception {
+        String token = accessToken();
+        String refreshToken = refreshToken();
+
+        assertNotNull(jwtService.redeemRefreshToken(refreshToken));
+        assertNotNull(authenticate(token));
+
+        assertNull(jwtService.redeemRefreshToken(refreshToken));
+        assertNull(authenticate(token));
+    }
+
+    private String accessToken() {
+        return remember(jwtService.generateToken(user));
+    }
+
+    private String refreshToken() {
+        return remember(jwtService.generateRefreshToken(user));
+    }
+
+    private String remember(String token) {
+        revocationIds.add(Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token).getBody().getId());
+        return token;
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -19,7 +19,7 @@ import AdminProductForm from './pages/admin/AdminProductForm.jsx';
 import AdminOrdersPage from './pages/admin/AdminOrdersPage.jsx';
 import AdminUsersPage from './pages/admin/AdminUsersPage.jsx';
 import AdminReviewsPage from './pages/admin/AdminReviewsPage.jsx';
-import { getCart, getUserProfile } from './api/apiService.js';
+import { clearTokens, getCart, getUserProfile } from './api/apiService.js';
 import ForgotPasswordPage from './pages/ForgotPasswordPage.jsx';
 import ResetPasswordPage from './pages/ResetPasswordPage.jsx';
 import EmailConfirmationPage from './pages/EmailConfirmationPage.jsx';
@@ -85,7 +85,7 @@ function App() {
                     console.error("Could not fetch user profile", error);
                     setIsAuthenticated(false);
                     setUserRole(null);
-                    localStorage.removeItem('token');
+                    clearTokens();
                 }
             } else {
                 setIsAuthenticated(false);
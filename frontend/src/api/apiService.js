@@ -16,6 +16,46 @@ apiService.interceptors.request.use(config => {
     return Promise.reject(error);
 });
 
+export const storeTokens = ({ accessToken, refreshToken }) => {
+    localStorage.setItem('token', accessToken);
+    localStorage.setItem('refreshToken', refreshToken);
+};
+
+export const clearTokens = () => {
+    localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+};
+
+// Access tokens are short-lived: on a 401, trade the refresh token for a new pair once and retry.
+// Concurrent 401s share one refresh call, since each refresh token only works once.
+let refreshing = null;
+
+const refreshTokens = () => {
+    if (!refreshing) {
+        const refreshToken = localStorage.getItem('refreshToken');
+        refreshing = axios.post('/api/auth/refresh', { refreshToken })
+            .then(response => storeTokens(response.data))
+            .finally(() => { refreshing = null; });
+    }
+    return refreshing;
+};
+
+apiService.interceptors.response.use(response => response, async error => {
+    const request = error.config;
+    if (error.response?.status === 401 && request && !request._retried && localStorage.getItem('refreshToken')) {
+        request._retried = true;
+        try {
+            await refreshTokens();
+        } catch (refreshError) {
+            clearTokens();
+            return Promise.reject(error);
+        }
+        request.headers.Authorization = `Bearer ${localStorage.getItem('token')}`;
+        return apiService(request);
+    }
+    return Promise.reject(error);
+});
+
 // --- UPDATED `createProduct` and `updateProduct` functions ---
 
 export const createProduct = (formData) => {
@@ -69,7 +109,13 @@ export const confirmEmail = (confirmationData) => {
 };
 
 export const logoutUser = () => {
-    localStorage.removeItem('token');
+    const token = localStorage.getItem('token');
+    const refreshToken = localStorage.getItem('refreshToken');
+    clearTokens();
+    if (token || refreshToken) {
+        // Revoke the tokens server-side as well; the local logout doesn't wait for it
+        axios.post('/api/auth/logout', { refreshToken }, { headers: token ? { Authorization: `Bearer ${token}` } : {} }).catch(() => {});
+    }
 };
 
 export const getUserProfile = () => {
@@ -124,8 +170,10 @@ export const deleteCategory = (id) => {
     return apiService.delete(`/categories/${id}`);
 };
 
-export const getAllOrders = () => {
-    return apiService.get('/orders');
+// Keyset-paginated: pass the previous page's nextCursor as `after`.
+// params: { after, size, status, from, to, city, email, coupon }
+export const getAllOrders = (params = {}) => {
+    return apiService.get('/orders', { params });
 };
 
 export const updateOrderStatus = (orderId, status) => {
@@ -168,6 +216,17 @@ export const getHero = () => {
     return apiService.get('/hero');
 };
 
+// Hero, announcement, countdown, settings, categories, bestsellers and new arrivals in one response.
+// Components asking at the same time share a single request.
+let storefrontRequest = null;
+export const getStorefront = () => {
+    if (!storefrontRequest) {
+        storefrontRequest = apiService.get('/storefront')
+            .finally(() => { storefrontRequest = null; });
+    }
+    return storefrontRequest;
+};
+
 export const updateHero = (formData) => {
     return apiService.put('/hero', formData, {
         headers: { 'Content-Type': 'multipart/form-data' },
@@ -220,7 +279,10 @@ export const deletePack = (id) => {
     return apiService.delete(`/packs/${id}`);
 };
 
-export const createOrder = (orderData) => {
+// Pass the same idempotencyKey when retrying a submission so the server never creates the order twice
+const idempotencyHeaders = (idempotencyKey) => (idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined);
+
+export const createOrder = (orderData, idempotencyKey) => {
     const params = new URLSearchParams();
     params.append('clientFullName', orderData.clientFullName);
     params.append('city', orderData.city);
@@ -229,11 +291,11 @@ export const createOrder = (orderData) => {
     if (orderData.couponCode) {
         params.append('couponCode', orderData.couponCode);
     }
-    return apiService.post(`/orders?${params.toString()}`);
+    return apiService.post(`/orders?${params.toString()}`, null, idempotencyHeaders(idempotencyKey));
 };
 
-export const createGuestOrder = (orderData) => {
-    return apiService.post('/orders/guest', orderData);
+export const createGuestOrder = (orderData, idempotencyKey) => {
+    return apiService.post('/orders/guest', orderData, idempotencyHeaders(idempotencyKey));
 };
 
 export const deleteOrder = (orderId) => {
@@ -252,8 +314,10 @@ export const restoreOrder = (orderId) => {
     return apiService.post(`/orders/${orderId}/restore`);
 };
 
-export const exportOrders = () => {
+// filters: optional { from, to } as YYYY-MM-DD (inclusive) and { status }
+export const exportOrders = (filters = {}) => {
     return apiService.get('/orders/export', {
+        params: filters,
         responseType: 'blob',
     });
 };
@@ -266,6 +330,10 @@ export const validateCoupon = (code) => {
     return apiService.get(`/coupons/validate/${code}`);
 };
 
+export const evaluateCoupon = (code, items) => {
+    return apiService.post(`/coupons/validate/${code}`, items);
+};
+
 export const getAllCoupons = () => {
     return apiService.get('/coupons');
 };
@@ -1,15 +1,16 @@
 import React, { useState, useEffect } from 'react';
-import { getCountdown } from '../api/apiService';
+import { getStorefront } from '../api/apiService';
 
 const CountdownBar = () => {
     const [config, setConfig] = useState(null);
     const [timeLeft, setTimeLeft] = useState(null);
 
     useEffect(() => {
-        getCountdown()
+        getStorefront()
             .then(response => {
-                if (response.data && response.data.enabled) {
-                    setConfig(response.data);
+                const countdown = response.data && response.data.countdown;
+                if (countdown && countdown.enabled) {
+                    setConfig(countdown);
                 }
             })
             .catch(error => console.error('Error fetching countdown:', error));
@@ -6,9 +6,10 @@ import { useDispatch } from 'react-redux';
 import ReactGA from "react-ga4";
 
 const ProductCard = ({ product }) => {
-    const fullImageUrl = (product.images && product.images.length > 0)
-        ? product.images[0]
-        : 'https://placehold.co/300x300/E91E63/FFFFFF?text=Product';
+    // Listing endpoints return cards with a single `image`; full products carry `images`
+    const fullImageUrl = product.image
+        || (product.images && product.images.length > 0 ? product.images[0] : null)
+        || 'https://placehold.co/300x300/E91E63/FFFFFF?text=Product';
 
     const handleAddToCart = () => {
         // This sends the event to Google Analytics
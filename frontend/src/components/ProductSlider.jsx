@@ -14,7 +14,7 @@ const ProductSlider = ({ title, products }) => {
                     <div key={product.id} className="bg-white rounded-lg shadow-lg overflow-hidden transform transition duration-300 hover:scale-105">
                         <Link to={`/product/${product.id}`} className="block">
                             <img
-                                src={product.images && product.images.length > 0 ? product.images[0] : 'https://placehold.co/600x400/E91E63/FFFFFF?text=Product'}
+                                src={product.image || (product.images && product.images.length > 0 ? product.images[0] : 'https://placehold.co/600x400/E91E63/FFFFFF?text=Product')}
                                 alt={product.name}
                                 className="w-full h-64 object-cover"
                                 onError={(e) => {
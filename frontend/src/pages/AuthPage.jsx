@@ -2,7 +2,7 @@
 
 import React, { useState } from 'react';
 import { useNavigate, Link } from 'react-router-dom';
-import { loginUser, registerUser } from '../api/apiService';
+import { loginUser, registerUser, storeTokens } from '../api/apiService';
 import ReCAPTCHA from 'react-google-recaptcha';
 
 const AuthPage = ({ setIsAuthenticated }) => {
@@ -41,7 +41,7 @@ const AuthPage = ({ setIsAuthenticated }) => {
                     password: formData.password,
                     recaptchaToken,
                 });
-                localStorage.setItem('token', response.data);
+                storeTokens(response.data);
                 setIsAuthenticated(true);
                 navigate('/profile');
             } else {
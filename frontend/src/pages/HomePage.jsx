@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { Link } from 'react-router-dom';
-import { getBestsellers, getNewArrivals, getApprovedReviews, getAllCategories, getHero } from '../api/apiService';
+import { getStorefront, getApprovedReviews } from '../api/apiService';
 import ProductCard from '../components/ProductCard';
 
 const HomePage = () => {
@@ -14,29 +14,17 @@ const HomePage = () => {
     useEffect(() => {
         const fetchData = async () => {
             try {
-                const [
-                    bestsellersResponse,
-                    newArrivalsResponse,
-                    reviewsResponse,
-                    categoriesResponse,
-                    heroResponse
-                ] = await Promise.all([
-                    getBestsellers(),
-                    getNewArrivals(),
-                    getApprovedReviews(),
-                    getAllCategories(),
-                    getHero()
+                const [storefrontResponse, reviewsResponse] = await Promise.all([
+                    getStorefront(),
+                    getApprovedReviews()
                 ]);
 
-                const bestsellersArray = Array.isArray(bestsellersResponse.data) ? bestsellersResponse.data : bestsellersResponse.data.content;
-                setBestsellers(bestsellersArray);
-
-                const newArrivalsArray = Array.isArray(newArrivalsResponse.data) ? newArrivalsResponse.data : newArrivalsResponse.data.content;
-                setNewArrivals(newArrivalsArray);
-
+                const storefront = storefrontResponse.data;
+                setBestsellers(storefront.bestsellers || []);
+                setNewArrivals(storefront.newArrivals || []);
                 setReviews(reviewsResponse.data);
-                setCategories(categoriesResponse.data);
-                setHero(heroResponse.data);
+                setCategories(storefront.categories || []);
+                setHero(storefront.hero);
 
             } catch (err) {
                 console.error("Error fetching data:", err);
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { getCart, createOrder, validateCoupon, createGuestOrder } from '../api/apiService';
 import { toast } from 'react-toastify';
@@ -15,6 +15,8 @@ const OrderPage = () => {
     const [couponCode, setCouponCode] = useState('');
     const [discount, setDiscount] = useState(0);
     const [appliedCoupon, setAppliedCoupon] = useState(null);
+    // One key per checkout: a double click or retried request can't place the order twice
+    const idempotencyKey = useRef(crypto.randomUUID());
 
     const moroccanCities = [
         "Agadir", "Al Hoceima", "Assilah", "Azemmour", "Beni Mellal", "Boujdour",
@@ -85,9 +87,9 @@ const OrderPage = () => {
 
         try {
             if (isAuthenticated) {
-                await createOrder({ ...formData, couponCode: appliedCoupon });
+                await createOrder({ ...formData, couponCode: appliedCoupon }, idempotencyKey.current);
             } else {
-                await createGuestOrder({ ...formData, cartItems: cart.items, couponCode: appliedCoupon });
+                await createGuestOrder({ ...formData, cartItems: cart.items, couponCode: appliedCoupon }, idempotencyKey.current);
                 localStorage.removeItem('cart');
             }
 
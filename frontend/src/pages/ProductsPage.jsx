@@ -25,6 +25,7 @@ const ProductsPage = () => {
     const [totalPages, setTotalPages] = useState(0);
     const [sort, setSort] = useState('name,asc');
     const [suggestions, setSuggestions] = useState([]);
+    const [facets, setFacets] = useState(null);
 
     const fetchItemsAndCategories = useCallback(async (searchQuery) => {
         setLoading(true);
@@ -54,6 +55,7 @@ const ProductsPage = () => {
                 response = await getAllProducts(params);
                 setItems(response.data.content);
                 setTotalPages(response.data.totalPages);
+                setFacets(response.data.facets || null);
             }
 
         } catch (err) {
@@ -142,6 +144,13 @@ const ProductsPage = () => {
     const CardComponent = filters.productType === 'packs' ? PackCard : ProductCard;
 
 
+
+    // Facet counts come with the product listing; categories without matches are left out of the block
+    const categoryCount = (categoryId) => {
+        if (!facets || filters.productType === 'packs') return null;
+        const facet = facets.categories.find(c => c.value === String(categoryId));
+        return facet ? facet.count : 0;
+    };
     return (
         <div className="container mx-auto px-4 py-8">
             <h1 className="text-3xl font-bold text-center mb-8">Our Products</h1>
@@ -174,7 +183,9 @@ const ProductsPage = () => {
                 <select name="categoryId" value={filters.categoryId} onChange={handleFilterChange} className="p-2 border rounded-md" disabled={filters.productType === 'packs'}>
                     <option value="">All Categories</option>
                     {categories.map(category => (
-                        <option key={category.id} value={category.id}>{category.name}</option>
+                        <option key={category.id} value={category.id}>
+                            {category.name}{categoryCount(category.id) !== null ? ` (${categoryCount(category.id)})` : ''}
+                        </option>
                     ))}
                 </select>
                 <input
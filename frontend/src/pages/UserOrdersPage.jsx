@@ -25,7 +25,9 @@ const UserOrdersPage = () => {
     }, []);
 
     // Helper function to calculate the total for an order
-    const calculateTotal = (items) => {
+    const calculateTotal = (order) => {
+        if (order.total != null) return Number(order.total).toFixed(2);
+        const items = order.orderItems;
         if (!items) return '0.00';
         return items.reduce((total, item) => total + (item.price * item.quantity), 0).toFixed(2);
     };
@@ -47,7 +49,7 @@ const UserOrdersPage = () => {
                         <div key={order.id} className="p-4 border rounded-lg shadow-sm">
                             <div className="flex justify-between items-center mb-2">
                                 <h2 className="text-xl font-semibold">Order ID: {order.id}</h2>
-                                <span className="font-bold text-lg">Total: ${calculateTotal(order.orderItems)}</span>
+                                <span className="font-bold text-lg">Total: ${calculateTotal(order)}</span>
                             </div>
                             <div className="text-sm text-gray-600 mb-2">
                                 <p>Date: {new Date(order.createdAt).toLocaleDateString()}</p>
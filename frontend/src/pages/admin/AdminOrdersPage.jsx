@@ -11,6 +11,9 @@ import {
 import { toast } from 'react-toastify';
 import 'react-toastify/dist/ReactToastify.css';
 
+const PAGE_SIZE = 50;
+const EMPTY_FILTERS = { status: '', from: '', to: '', city: '', email: '', coupon: '' };
+
 const AdminOrdersPage = () => {
     // ... (existing state and functions)
     const [orders, setOrders] = useState([]);
@@ -18,14 +21,23 @@ const AdminOrdersPage = () => {
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
 
-    const fetchAllOrders = async () => {
+    const [filters, setFilters] = useState(EMPTY_FILTERS);
+    const [appliedFilters, setAppliedFilters] = useState(EMPTY_FILTERS);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // Drop empty filters so they are not sent as blank query parameters
+    const activeFilters = (values) => Object.fromEntries(Object.entries(values).filter(([, value]) => value));
+
+    const fetchAllOrders = async (filterValues = appliedFilters) => {
         try {
             setLoading(true);
             const [activeOrdersRes, deletedOrdersRes] = await Promise.all([
-                getAllOrders(),
+                getAllOrders({ ...activeFilters(filterValues), size: PAGE_SIZE }),
                 getDeletedOrders()
             ]);
-            setOrders(activeOrdersRes.data);
+            setOrders(activeOrdersRes.data.content);
+            setNextCursor(activeOrdersRes.data.nextCursor);
             setDeletedOrders(deletedOrdersRes.data);
             setError(null);
         } catch (err) {
@@ -37,6 +49,37 @@ const AdminOrdersPage = () => {
         }
     };
 
+    const loadMoreOrders = async () => {
+        if (!nextCursor) return;
+        try {
+            setLoadingMore(true);
+            const response = await getAllOrders({ ...activeFilters(appliedFilters), size: PAGE_SIZE, after: nextCursor });
+            setOrders(prev => [...prev, ...response.data.content]);
+            setNextCursor(response.data.nextCursor);
+        } catch (err) {
+            toast.error('Failed to load more orders.');
+            console.error(err);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    const handleFilterChange = (e) => {
+        setFilters({ ...filters, [e.target.name]: e.target.value });
+    };
+
+    const handleApplyFilters = (e) => {
+        e.preventDefault();
+        setAppliedFilters(filters);
+        fetchAllOrders(filters);
+    };
+
+    const handleResetFilters = () => {
+        setFilters(EMPTY_FILTERS);
+        setAppliedFilters(EMPTY_FILTERS);
+        fetchAllOrders(EMPTY_FILTERS);
+    };
+
     useEffect(() => {
         fetchAllOrders();
     }, []);
@@ -79,7 +122,8 @@ const AdminOrdersPage = () => {
     };
     const handleExport = async () => {
         try {
-            const response = await exportOrders();
+            const { status, from, to } = activeFilters(appliedFilters);
+            const response = await exportOrders({ status, from, to });
             const url = window.URL.createObjectURL(new Blob([response.data]));
             const link = document.createElement('a');
             link.href = url;
@@ -108,7 +152,22 @@ const AdminOrdersPage = () => {
                     Export Orders
                 </button>
             </div>
-            {/* ... (rest of the component) ... */}
+            <form onSubmit={handleApplyFilters} className="bg-white shadow-md rounded-lg p-4 mb-4 grid grid-cols-2 md:grid-cols-4 lg:grid-cols-8 gap-2 items-end">
+                <select name="status" value={filters.status} onChange={handleFilterChange} className="p-2 border rounded">
+                    <option value="">All statuses</option>
+                    <option value="PREPARING">Preparing</option>
+                    <option value="DELIVERING">Delivering</option>
+                    <option value="DELIVERED">Delivered</option>
+                    <option value="CANCELED">Canceled</option>
+                </select>
+                <input type="date" name="from" value={filters.from} onChange={handleFilterChange} className="p-2 border rounded" title="From" />
+                <input type="date" name="to" value={filters.to} onChange={handleFilterChange} className="p-2 border rounded" title="To" />
+                <input type="text" name="city" value={filters.city} onChange={handleFilterChange} placeholder="City" className="p-2 border rounded" />
+                <input type="email" name="email" value={filters.email} onChange={handleFilterChange} placeholder="Customer email" className="p-2 border rounded" />
+                <input type="text" name="coupon" value={filters.coupon} onChange={handleFilterChange} placeholder="Coupon code" className="p-2 border rounded" />
+                <button type="submit" className="bg-gray-800 text-white px-4 py-2 rounded hover:bg-gray-900">Filter</button>
+                <button type="button" onClick={handleResetFilters} className="border px-4 py-2 rounded hover:bg-gray-100">Reset</button>
+            </form>
             <div className="bg-white shadow-md rounded-lg p-4 mb-8">
                 <h2 className="text-xl font-semibold mb-3">Active Orders</h2>
                 <div className="overflow-x-auto">
@@ -121,6 +180,8 @@ const AdminOrdersPage = () => {
                             <th className="px-4 py-2 border">Address</th>
                             <th className="px-4 py-2 border">Phone</th>
                             <th className="px-4 py-2 border">Created At</th>
+                            <th className="px-4 py-2 border">Items</th>
+                            <th className="px-4 py-2 border">Total</th>
                             <th className="px-4 py-2 border">Status</th>
                             <th className="px-4 py-2 border">Actions</th>
                         </tr>
@@ -133,6 +194,8 @@ const AdminOrdersPage = () => {
                                 <td className="border px-4 py-2">{order.address}, {order.city}</td>
                                 <td className="border px-4 py-2">{order.phoneNumber}</td>
                                 <td className="border px-4 py-2">{new Date(order.createdAt).toLocaleString()}</td>
+                                <td className="border px-4 py-2">{order.itemCount ?? '-'}</td>
+                                <td className="border px-4 py-2">{order.total != null ? `$${Number(order.total).toFixed(2)}` : '-'}</td>
                                 <td className="border px-4 py-2">
                                     <select
                                         value={order.status}
@@ -158,6 +221,15 @@ const AdminOrdersPage = () => {
                         </tbody>
                     </table>
                 </div>
+                {nextCursor && (
+                    <button
+                        onClick={loadMoreOrders}
+                        disabled={loadingMore}
+                        className="mt-4 bg-gray-200 px-4 py-2 rounded hover:bg-gray-300 disabled:opacity-50"
+                    >
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                    </button>
+                )}
             </div>
 
             {/* Deleted Orders Table */}